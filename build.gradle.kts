@@ -25,6 +25,7 @@ dependencies{
     implementation("org.graphstream:gs-ui-swing:2.0")
     compileOnly("org.projectlombok:lombok:1.18.30")
     annotationProcessor("org.projectlombok:lombok:1.18.30")
+    testImplementation("junit:junit:4.13.2")
 }
 
 tasks {
@@ -37,6 +38,21 @@ tasks {
         kotlinOptions.jvmTarget = "17"
     }
 
+    test {
+        exclude("**/*Benchmark.class")
+    }
+
+    register<Test>("benchmark") {
+        description = "Analyses synthetic Spring projects, see CodeflowBenchmark"
+        group = "verification"
+        testClassesDirs = sourceSets["test"].output.classesDirs
+        classpath = sourceSets["test"].runtimeClasspath
+        include("**/*Benchmark.class")
+        maxHeapSize = "4g"
+        systemProperty("codeflow.benchmark.dir", layout.buildDirectory.dir("reports/codeflow-benchmark").get().asFile.path)
+        outputs.upToDateWhen { false }
+    }
+
     patchPluginXml {
         sinceBuild.set("222")
         untilBuild.set("242.*")
@@ -0,0 +1,189 @@
+package com.raja.codelfow;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.diagnostic.Logger;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntSupplier;
+
+/**
+ * Measurements of one codeflow analysis, per {@link Phase}: wall time, searches issued, classes those searches
+ * returned and the used heap at the end of the phase. Searches may be counted from several threads at once.
+ */
+public class AnalysisMetrics {
+
+    private static final Logger LOG = Logger.getInstance(AnalysisMetrics.class);
+
+    private final IntSupplier sharedSearches;
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] heapUsed = new long[Phase.values().length];
+    private final AtomicIntegerArray searches = new AtomicIntegerArray(Phase.values().length);
+    private final AtomicIntegerArray found = new AtomicIntegerArray(Phase.values().length);
+    private volatile Phase current;
+    private long phaseStart;
+    private int sharedSearchesAtStart;
+    @Getter
+    @Setter
+    private String engine;
+    @Getter
+    @Setter
+    private boolean fromCache;
+    @Getter
+    private int candidates;
+    @Getter
+    private int kept;
+    @Getter
+    private int nodes;
+    @Getter
+    private int edges;
+
+    /**
+     * @param sharedSearches the number of searches run so far by a search cache shared between analyses, such as
+     *                       {@link DiscoveryContext#getSearchCount()}; the searches it runs during a phase count for
+     *                       that phase
+     */
+    public AnalysisMetrics(IntSupplier sharedSearches) {
+        this.sharedSearches = sharedSearches;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = 0;
+            heapUsed[i] = 0;
+            searches.set(i, 0);
+            found.set(i, 0);
+        }
+        current = null;
+        fromCache = false;
+        candidates = 0;
+        kept = 0;
+        nodes = 0;
+        edges = 0;
+    }
+
+    public synchronized void startPhase(Phase phase) {
+        finish();
+        current = phase;
+        phaseStart = System.nanoTime();
+        sharedSearchesAtStart = sharedSearches.getAsInt();
+    }
+
+    /**
+     * Ends the current phase, if any.
+     */
+    public synchronized void finish() {
+        Phase phase = current;
+        if (phase == null) {
+            return;
+        }
+        nanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        searches.addAndGet(phase.ordinal(), sharedSearches.getAsInt() - sharedSearchesAtStart);
+        Runtime runtime = Runtime.getRuntime();
+        heapUsed[phase.ordinal()] = runtime.totalMemory() - runtime.freeMemory();
+        current = null;
+    }
+
+    /**
+     * Counts a search of the current phase which returned {@code results} elements.
+     */
+    public void searched(int results) {
+        Phase phase = current;
+        if (phase != null) {
+            searches.incrementAndGet(phase.ordinal());
+            found.addAndGet(phase.ordinal(), results);
+        }
+    }
+
+    /**
+     * Records how many of the discovered classes were kept after dropping those outside the analysis scope.
+     */
+    public synchronized void filtered(int candidates, int kept) {
+        this.candidates += candidates;
+        this.kept += kept;
+    }
+
+    public synchronized void graph(CodeflowGraph graph) {
+        this.nodes = graph.size();
+        this.edges = graph.edgeCount();
+    }
+
+    public synchronized long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int searches(Phase phase) {
+        return searches.get(phase.ordinal());
+    }
+
+    public int found(Phase phase) {
+        return found.get(phase.ordinal());
+    }
+
+    public synchronized long peakHeapUsed() {
+        long peak = 0;
+        for (long used : heapUsed) {
+            peak = Math.max(peak, used);
+        }
+        return peak;
+    }
+
+    public synchronized void write(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("engine").value(engine);
+        json.name("fromCache").value(fromCache);
+        json.name("nodes").value(nodes);
+        json.name("edges").value(edges);
+        json.name("candidates").value(candidates);
+        json.name("kept").value(kept);
+        json.name("peakHeapUsedMb").value(peakHeapUsed() >> 20);
+        json.name("phases").beginObject();
+        for (Phase phase : Phase.values()) {
+            json.name(phase.name()).beginObject();
+            json.name("millis").value(nanos(phase) / 1_000_000.0);
+            json.name("searches").value(searches(phase));
+            json.name("found").value(found(phase));
+            json.name("heapUsedMb").value(heapUsed[phase.ordinal()] >> 20);
+            json.endObject();
+        }
+        json.endObject();
+        json.endObject();
+    }
+
+    /**
+     * Writes the metrics to {@code idea.log} as a single JSON line prefixed with {@code codeflow.metrics}.
+     */
+    public void log() {
+        StringWriter out = new StringWriter();
+        try {
+            write(new JsonWriter(out));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        LOG.info("codeflow.metrics " + out);
+    }
+
+    /**
+     * @return a short HTML summary for a notification
+     */
+    public synchronized String toHtml() {
+        StringBuilder html = new StringBuilder();
+        html.append(nodes).append(" classes, ").append(edges).append(" references");
+        if (fromCache) {
+            return html.append(", unchanged since the last draw").toString();
+        }
+        html.append(", kept ").append(kept).append(" of ").append(candidates).append(" discovered classes<br>");
+        for (Phase phase : Phase.values()) {
+            if (nanos(phase) == 0) {
+                continue;
+            }
+            html.append(phase.getText()).append(": ").append(nanos(phase) / 1_000_000).append(" ms, ")
+                    .append(searches(phase)).append(" searches, ")
+                    .append(found(phase)).append(" found<br>");
+        }
+        return html.append("Peak heap ").append(peakHeapUsed() >> 20).append(" MB").toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.raja.codelfow;
+
+import lombok.Getter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A computed codeflow graph together with the time stamps of the project's Java files it was computed from and,
+ * once it was drawn, its layout.
+ */
+@Getter
+public class CachedGraph {
+
+    private static final int VERSION = 4;
+
+    /**
+     * The {@link CodeflowSettings#graphKey() settings} the graph was computed with.
+     */
+    private final String settingsKey;
+    private final Map<String, Long> stamps;
+    private final CodeflowGraph graph;
+    /**
+     * The {@link LayeredLayout} of the graph, {@code null} until it is computed.
+     */
+    private final GraphLayout layout;
+
+    public CachedGraph(String settingsKey, Map<String, Long> stamps, CodeflowGraph graph) {
+        this(settingsKey, stamps, graph, null);
+    }
+
+    public CachedGraph(String settingsKey, Map<String, Long> stamps, CodeflowGraph graph, GraphLayout layout) {
+        this.settingsKey = settingsKey;
+        this.stamps = stamps;
+        this.graph = graph;
+        this.layout = layout;
+    }
+
+    public CachedGraph withLayout(GraphLayout layout) {
+        return new CachedGraph(settingsKey, stamps, graph, layout);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeUTF(settingsKey);
+        out.writeInt(stamps.size());
+        for (Map.Entry<String, Long> stamp : stamps.entrySet()) {
+            out.writeUTF(stamp.getKey());
+            out.writeLong(stamp.getValue());
+        }
+        graph.write(out);
+        out.writeBoolean(layout != null);
+        if (layout != null) {
+            layout.write(out);
+        }
+    }
+
+    /**
+     * @return the graph read from {@code in}, or {@code null} when it was written by another cache version
+     */
+    public static CachedGraph read(DataInput in) throws IOException {
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        String settingsKey = in.readUTF();
+        int stampCount = in.readInt();
+        Map<String, Long> stamps = new HashMap<>(stampCount);
+        for (int i = 0; i < stampCount; i++) {
+            stamps.put(in.readUTF(), in.readLong());
+        }
+        CodeflowGraph graph = CodeflowGraph.read(in);
+        return new CachedGraph(settingsKey, stamps, graph, in.readBoolean() ? GraphLayout.read(in) : null);
+    }
+}
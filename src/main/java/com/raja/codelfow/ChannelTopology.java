@@ -0,0 +1,347 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.impl.cache.CacheManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.search.UsageSearchContext;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Links message publishers to consumers by channel name. Publishers are the classes calling
+ * {@code PubSubPublisherOperations.publish(topic, ...)} or {@code MessageChannel.send(...)}, consumers the classes
+ * with {@code @ServiceActivator(inputChannel = ...)} methods. Channel names are resolved from literals and
+ * constants: the topic argument of {@code publish}, the bean name of the channel {@code send} is called on, i.e. its
+ * {@code @Qualifier}, the name of the field or parameter it is injected into or the name of its {@code @Bean}
+ * method, and the {@code inputChannel} attribute. Aliases of {@code MessageChannel} beans map to the bean's first
+ * name.
+ * <p>
+ * Publish calls are found with one word index lookup per publish method name instead of a reference search per
+ * publish method; only the calls in the files containing the name are resolved. When only stubs may be read the
+ * method bodies are out of reach, so every class getting a channel or publisher injected is taken to publish to the
+ * injected channels instead, see {@link #collectInjectedPublishers()}.
+ */
+class ChannelTopology {
+
+    static final String PUBLISHER_OPERATIONS = "com.google.cloud.spring.pubsub.core.publisher.PubSubPublisherOperations";
+    static final String MESSAGE_CHANNEL = "org.springframework.messaging.MessageChannel";
+    static final String SERVICE_ACTIVATOR = "org.springframework.integration.annotation.ServiceActivator";
+    private static final String CHANNEL_PREFIX = "channel:";
+    private static final Set<String> QUALIFIERS = Set.of("Qualifier", "Named");
+
+    private final Project project;
+    private final GlobalSearchScope scope;
+    private final AnalysisMetrics metrics;
+    private final PsiConstantEvaluationHelper constants;
+    private final Map<String, String> aliases = new HashMap<>();
+    /**
+     * The channels every publisher publishes to, empty if none of their names could be resolved.
+     */
+    @Getter
+    private final Map<PsiClass, Set<String>> publishers = new LinkedHashMap<>();
+    /**
+     * The channels every consumer consumes, empty if none of their names could be resolved.
+     */
+    @Getter
+    private final Map<PsiClass, Set<String>> consumers = new LinkedHashMap<>();
+
+    private ChannelTopology(Project project, GlobalSearchScope scope, AnalysisMetrics metrics) {
+        this.project = project;
+        this.scope = scope;
+        this.metrics = metrics;
+        this.constants = JavaPsiFacade.getInstance(project).getConstantEvaluationHelper();
+    }
+
+    /**
+     * @param stubsOnly whether to read the stubs of the files only, never their AST
+     */
+    static ChannelTopology of(Project project, GlobalSearchScope scope, AnalysisMetrics metrics, boolean stubsOnly) {
+        ChannelTopology topology = new ChannelTopology(project, scope, metrics);
+        topology.collectChannelBeans();
+        if (stubsOnly) {
+            topology.collectInjectedPublishers();
+        } else {
+            topology.collectPublishers();
+        }
+        topology.collectConsumers();
+        return topology;
+    }
+
+    /**
+     * @return the key of the channel {@code name} in the graph
+     */
+    static String key(String name) {
+        return CHANNEL_PREFIX + name;
+    }
+
+    /**
+     * @return whether a consumer in the project consumes channel {@code name}
+     */
+    boolean isConsumed(String name) {
+        return consumers.values().stream().anyMatch(channels -> channels.contains(name));
+    }
+
+    private void collectChannelBeans() {
+        DiscoveryContext.getInstance(project).beanMethods(scope).forEach(beanMethod -> {
+            PsiType returnType = beanMethod.getReturnType();
+            if (returnType == null || !InheritanceUtil.isInheritor(returnType, MESSAGE_CHANNEL)) {
+                return;
+            }
+            List<String> names = beanNames(beanMethod);
+            names.forEach(name -> aliases.putIfAbsent(name, names.get(0)));
+        });
+    }
+
+    private void collectPublishers() {
+        Set<PsiMethod> publishMethods = new HashSet<>();
+        addMethods(PUBLISHER_OPERATIONS, "publish", publishMethods);
+        addMethods(MESSAGE_CHANNEL, "send", publishMethods);
+        publishMethods.stream()
+                .map(PsiMethod::getName)
+                .distinct()
+                .sorted()
+                .forEach(name -> {
+                    List<PsiFile> files = new ArrayList<>();
+                    PsiSearchHelper.getInstance(project).processAllFilesWithWord(name, scope, files::add, true);
+                    metrics.searched(files.size());
+                    files.forEach(file -> {
+                        ProgressManager.checkCanceled();
+                        PsiTreeUtil.findChildrenOfType(file, PsiMethodCallExpression.class).stream()
+                                .filter(call -> name.equals(call.getMethodExpression().getReferenceName()))
+                                .forEach(call -> addPublishCall(call, publishMethods));
+                    });
+                });
+    }
+
+    /**
+     * Finds the classes in the files mentioning a channel or publisher type which get one injected into a field or
+     * constructor parameter. A class publishes to the channels injected into it, named by their qualifier or the
+     * name of the constructor parameter, or the field if no constructor takes a channel. The topics passed to a
+     * publisher are unknown, such classes may publish to no channel at all.
+     */
+    private void collectInjectedPublishers() {
+        Set<String> typeNames = new TreeSet<>();
+        for (String className : List.of(PUBLISHER_OPERATIONS, MESSAGE_CHANNEL)) {
+            PsiClass psiClass = JavaPsiFacadeImpl.getInstance(project).findClass(className, GlobalSearchScope.allScope(project));
+            if (psiClass != null) {
+                Collection<PsiClass> inheritors = ClassInheritorsSearch.search(psiClass, GlobalSearchScope.allScope(project), true).findAll();
+                metrics.searched(inheritors.size());
+                typeNames.add(psiClass.getName());
+                inheritors.forEach(inheritor -> typeNames.add(inheritor.getName()));
+            }
+        }
+        Set<VirtualFile> files = new TreeSet<>(Comparator.comparing(VirtualFile::getUrl));
+        typeNames.stream()
+                .filter(Objects::nonNull)
+                .forEach(name -> {
+                    VirtualFile[] found = CacheManager.getInstance(project).getVirtualFilesWithWord(name, UsageSearchContext.IN_CODE, scope, true);
+                    metrics.searched(found.length);
+                    files.addAll(Arrays.asList(found));
+                });
+        PsiManager psiManager = PsiManager.getInstance(project);
+        files.forEach(file -> {
+            ProgressManager.checkCanceled();
+            if (psiManager.findFile(file) instanceof PsiJavaFile javaFile) {
+                Arrays.stream(javaFile.getClasses()).forEach(this::addInjectedPublisher);
+            }
+        });
+    }
+
+    private void addInjectedPublisher(PsiClass psiClass) {
+        boolean publisher = false;
+        boolean constructorInjected = false;
+        Set<String> channels = new TreeSet<>();
+        for (PsiMethod constructor : psiClass.getConstructors()) {
+            for (PsiParameter parameter : constructor.getParameterList().getParameters()) {
+                if (InheritanceUtil.isInheritor(parameter.getType(), MESSAGE_CHANNEL)) {
+                    constructorInjected = true;
+                    addChannel(channels, beanName(parameter));
+                }
+                publisher |= isPublisher(parameter.getType());
+            }
+        }
+        for (PsiField field : psiClass.getFields()) {
+            if (InheritanceUtil.isInheritor(field.getType(), MESSAGE_CHANNEL)) {
+                String qualifier = qualifier(field);
+                addChannel(channels, qualifier != null || constructorInjected ? qualifier : field.getName());
+            }
+            publisher |= isPublisher(field.getType());
+        }
+        if (publisher) {
+            publishers.computeIfAbsent(psiClass, key -> new TreeSet<>()).addAll(channels);
+        }
+    }
+
+    private static boolean isPublisher(PsiType type) {
+        return InheritanceUtil.isInheritor(type, MESSAGE_CHANNEL) || InheritanceUtil.isInheritor(type, PUBLISHER_OPERATIONS);
+    }
+
+    private void addChannel(Set<String> channels, String channel) {
+        if (channel != null) {
+            channels.add(aliases.getOrDefault(channel, channel));
+        }
+    }
+
+    private void addMethods(String className, String methodName, Set<PsiMethod> methods) {
+        PsiClass psiClass = JavaPsiFacadeImpl.getInstance(project).findClass(className, GlobalSearchScope.allScope(project));
+        if (psiClass != null) {
+            methods.addAll(Arrays.asList(psiClass.findMethodsByName(methodName, false)));
+        }
+    }
+
+    private void addPublishCall(PsiMethodCallExpression call, Set<PsiMethod> publishMethods) {
+        PsiMethod method = call.resolveMethod();
+        if (method == null || !(publishMethods.contains(method)
+                || Arrays.stream(method.findDeepestSuperMethods()).anyMatch(publishMethods::contains))) {
+            return;
+        }
+        PsiClass publisher = PsiTreeUtil.getTopmostParentOfType(call, PsiClass.class);
+        if (publisher == null) {
+            return;
+        }
+        String channel;
+        if ("send".equals(method.getName())) {
+            channel = channelBeanName(call.getMethodExpression().getQualifierExpression());
+        } else {
+            PsiExpression[] arguments = call.getArgumentList().getExpressions();
+            channel = arguments.length == 0 ? null : constant(arguments[0]);
+        }
+        Set<String> channels = publishers.computeIfAbsent(publisher, key -> new TreeSet<>());
+        if (channel != null) {
+            channels.add(aliases.getOrDefault(channel, channel));
+        }
+    }
+
+    private void collectConsumers() {
+        PsiClass serviceActivator = JavaPsiFacadeImpl.getInstance(project).findClass(SERVICE_ACTIVATOR, GlobalSearchScope.allScope(project));
+        if (serviceActivator == null) {
+            return;
+        }
+        Collection<PsiMethod> methods = AnnotatedElementsSearch.searchPsiMethods(serviceActivator, scope).findAll();
+        metrics.searched(methods.size());
+        methods.forEach(method -> {
+            PsiAnnotation annotation = method.getAnnotation(SERVICE_ACTIVATOR);
+            PsiAnnotationMemberValue inputChannel = annotation == null ? null : annotation.findDeclaredAttributeValue("inputChannel");
+            PsiClass consumer = method.getContainingClass();
+            if (inputChannel == null || consumer == null) {
+                return;
+            }
+            Set<String> channels = consumers.computeIfAbsent(consumer, key -> new TreeSet<>());
+            String channel = constant(inputChannel);
+            if (channel != null) {
+                channels.add(aliases.getOrDefault(channel, channel));
+            }
+        });
+    }
+
+    /**
+     * @return the name of the bean {@code expression} refers to, or {@code null} if it cannot be told
+     */
+    private String channelBeanName(PsiExpression expression) {
+        if (expression instanceof PsiMethodCallExpression call) {
+            PsiMethod method = call.resolveMethod();
+            return method != null && method.hasAnnotation(DiscoveryContext.BEAN) ? beanNames(method).get(0) : null;
+        }
+        if (!(expression instanceof PsiReferenceExpression reference)) {
+            return null;
+        }
+        PsiElement target = reference.resolve();
+        if (target instanceof PsiField field) {
+            String qualifier = qualifier(field);
+            if (qualifier != null) {
+                return qualifier;
+            }
+            PsiParameter parameter = constructorParameter(field);
+            if (parameter != null) {
+                return beanName(parameter);
+            }
+            return field.getName();
+        }
+        if (target instanceof PsiParameter parameter) {
+            return beanName(parameter);
+        }
+        return null;
+    }
+
+    private String beanName(PsiParameter parameter) {
+        String qualifier = qualifier(parameter);
+        return qualifier != null ? qualifier : parameter.getName();
+    }
+
+    /**
+     * @return the constructor parameter {@code field} is assigned from, {@code null} if there is none
+     */
+    private static PsiParameter constructorParameter(PsiField field) {
+        PsiClass containingClass = field.getContainingClass();
+        if (containingClass == null) {
+            return null;
+        }
+        for (PsiMethod constructor : containingClass.getConstructors()) {
+            for (PsiAssignmentExpression assignment : PsiTreeUtil.findChildrenOfType(constructor.getBody(), PsiAssignmentExpression.class)) {
+                if (assignment.getLExpression() instanceof PsiReferenceExpression left
+                        && left.resolve() == field
+                        && assignment.getRExpression() instanceof PsiReferenceExpression right
+                        && right.resolve() instanceof PsiParameter parameter) {
+                    return parameter;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String qualifier(PsiModifierListOwner owner) {
+        PsiModifierList modifierList = owner.getModifierList();
+        if (modifierList == null) {
+            return null;
+        }
+        for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+            PsiJavaCodeReferenceElement name = annotation.getNameReferenceElement();
+            if (name != null && QUALIFIERS.contains(name.getReferenceName())) {
+                return constant(annotation.findDeclaredAttributeValue("value"));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the names of the bean declared by {@code beanMethod}, the method name unless {@code @Bean} names it
+     */
+    private List<String> beanNames(PsiMethod beanMethod) {
+        PsiAnnotation bean = beanMethod.getAnnotation(DiscoveryContext.BEAN);
+        PsiAnnotationMemberValue value = bean == null ? null : bean.findDeclaredAttributeValue("name");
+        if (value == null && bean != null) {
+            value = bean.findDeclaredAttributeValue("value");
+        }
+        List<String> names = new ArrayList<>();
+        if (value instanceof PsiArrayInitializerMemberValue array) {
+            Arrays.stream(array.getInitializers()).map(this::constant).filter(Objects::nonNull).forEach(names::add);
+        } else if (value != null) {
+            String name = constant(value);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        if (names.isEmpty()) {
+            names.add(beanMethod.getName());
+        }
+        return names;
+    }
+
+    private String constant(PsiElement element) {
+        if (element == null) {
+            return null;
+        }
+        Object value = constants.computeConstantExpression(element);
+        return value instanceof String string && !string.isEmpty() ? string : null;
+    }
+}
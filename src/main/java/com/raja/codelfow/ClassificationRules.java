@@ -0,0 +1,197 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.util.InheritanceUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Maps classes to {@link NodeFlags} by stereotype rules: the built-in Spring stereotypes followed by the
+ * {@link CodeflowSettings.Stereotype}s of the project. A rule matches a class when each criterion it sets matches:
+ * the class is annotated with the annotation or an annotation meta-annotated with it, it inherits from the
+ * supertype, and its simple name matches the pattern. The rules are compiled once into hash lookups from annotation
+ * and supertype names to rules, so a class is classified in a single pass over its annotations and supertypes. Must
+ * be compiled and used inside a read action.
+ */
+class ClassificationRules {
+
+    private static final Logger LOG = Logger.getInstance(ClassificationRules.class);
+
+    private static final int ANNOTATION = 1;
+    private static final int SUPERTYPE = 1 << 1;
+    private static final int NAME = 1 << 2;
+
+    private static final List<CodeflowSettings.Stereotype> BUILT_IN = List.of(
+            CodeflowSettings.Stereotype.annotatedWith(DiscoveryContext.CONTROLLER, "controller"),
+            CodeflowSettings.Stereotype.annotatedWith("org.springframework.context.annotation.Configuration", "config"),
+            CodeflowSettings.Stereotype.annotatedWith("org.springframework.stereotype.Repository", "repository"));
+
+    /**
+     * @param criteria the criteria the stereotype sets, all of them have to match
+     */
+    private record Rule(CodeflowSettings.Stereotype stereotype, int criteria, int flags, Pattern namePattern) {
+    }
+
+    private final Project project;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, IntArrayList> byAnnotation = new HashMap<>();
+    private final Map<String, IntArrayList> bySupertype = new HashMap<>();
+    private final IntArrayList byName = new IntArrayList();
+
+    private ClassificationRules(Project project, List<CodeflowSettings.Stereotype> stereotypes) {
+        this.project = project;
+        DiscoveryContext context = DiscoveryContext.getInstance(project);
+        for (CodeflowSettings.Stereotype stereotype : stereotypes) {
+            int index = rules.size();
+            int criteria = 0;
+            Pattern namePattern = null;
+            if (isSet(stereotype.namePattern)) {
+                try {
+                    namePattern = Pattern.compile(stereotype.namePattern);
+                } catch (PatternSyntaxException e) {
+                    LOG.warn("Ignoring codeflow stereotype with invalid name pattern " + stereotype.namePattern, e);
+                    continue;
+                }
+                criteria |= NAME;
+                byName.add(index);
+            }
+            if (isSet(stereotype.annotation)) {
+                criteria |= ANNOTATION;
+                Set<String> annotations = new HashSet<>();
+                annotations.add(stereotype.annotation);
+                context.annotationClosure(stereotype.annotation).stream()
+                        .map(PsiClass::getQualifiedName)
+                        .filter(Objects::nonNull)
+                        .forEach(annotations::add);
+                annotations.forEach(annotation -> byAnnotation.computeIfAbsent(annotation, key -> new IntArrayList()).add(index));
+            }
+            if (isSet(stereotype.supertype)) {
+                criteria |= SUPERTYPE;
+                bySupertype.computeIfAbsent(stereotype.supertype, key -> new IntArrayList()).add(index);
+            }
+            if (criteria != 0) {
+                rules.add(new Rule(stereotype, criteria, NodeFlags.parse(stereotype.flags), namePattern));
+            }
+        }
+    }
+
+    static ClassificationRules of(Project project) {
+        List<CodeflowSettings.Stereotype> stereotypes = new ArrayList<>(BUILT_IN);
+        stereotypes.addAll(CodeflowSettings.getInstance(project).getStereotypes());
+        return new ClassificationRules(project, stereotypes);
+    }
+
+    /**
+     * @return the flags of the rules matching {@code psiClass}
+     */
+    int flags(PsiClass psiClass) {
+        return flags(match(psiClass));
+    }
+
+    /**
+     * Classifies a class known by names only, like the classes of {@link CodeflowIndex}.
+     *
+     * @param annotations the qualified names the annotations of the class may have
+     * @param supertypes  the qualified names its supertypes may have
+     */
+    int flags(Collection<String> annotations, Collection<String> supertypes, String name) {
+        return flags(match(annotations, supertypes, name));
+    }
+
+    /**
+     * @return the classes in {@code scope} which a project stereotype makes components; stereotypes setting a name
+     * pattern only cannot be searched for and only classify the classes found otherwise
+     */
+    Set<PsiClassImpl> components(GlobalSearchScope scope) {
+        Set<PsiClassImpl> components = new HashSet<>();
+        for (int i = BUILT_IN.size(); i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (!NodeFlags.has(rule.flags(), NodeFlags.COMPONENT)) {
+                continue;
+            }
+            int index = i;
+            candidates(rule, scope).stream()
+                    .filter(candidate -> match(candidate)[index] == rule.criteria())
+                    .forEach(components::add);
+        }
+        return components;
+    }
+
+    private Collection<PsiClassImpl> candidates(Rule rule, GlobalSearchScope scope) {
+        if (NodeFlags.has(rule.criteria(), ANNOTATION)) {
+            return DiscoveryContext.getInstance(project).annotatedClasses(rule.stereotype().annotation, scope);
+        }
+        if (NodeFlags.has(rule.criteria(), SUPERTYPE)) {
+            PsiClass supertype = JavaPsiFacadeImpl.getInstance(project).findClass(rule.stereotype().supertype, GlobalSearchScope.allScope(project));
+            if (supertype != null) {
+                return ClassInheritorsSearch.search(supertype, scope, true).findAll().stream()
+                        .filter(psiClass -> psiClass instanceof PsiClassImpl)
+                        .map(psiClass -> (PsiClassImpl) psiClass)
+                        .toList();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * @return the criteria of every rule {@code psiClass} matches, by rule
+     */
+    private int[] match(PsiClass psiClass) {
+        List<String> annotations = new ArrayList<>();
+        for (PsiAnnotation annotation : psiClass.getAnnotations()) {
+            annotations.add(annotation.getQualifiedName());
+        }
+        List<String> supertypes = new ArrayList<>();
+        if (!bySupertype.isEmpty()) {
+            InheritanceUtil.getSuperClasses(psiClass).forEach(superClass -> supertypes.add(superClass.getQualifiedName()));
+        }
+        return match(annotations, supertypes, psiClass.getName());
+    }
+
+    private int[] match(Collection<String> annotations, Collection<String> supertypes, String name) {
+        int[] matched = new int[rules.size()];
+        annotations.forEach(annotation -> match(byAnnotation.get(annotation), ANNOTATION, matched));
+        supertypes.forEach(supertype -> match(bySupertype.get(supertype), SUPERTYPE, matched));
+        if (name != null) {
+            for (int i = 0; i < byName.size(); i++) {
+                int index = byName.getInt(i);
+                if (rules.get(index).namePattern().matcher(name).matches()) {
+                    matched[index] |= NAME;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static void match(IntArrayList rules, int criterion, int[] matched) {
+        if (rules != null) {
+            for (int i = 0; i < rules.size(); i++) {
+                matched[rules.getInt(i)] |= criterion;
+            }
+        }
+    }
+
+    private int flags(int[] matched) {
+        int flags = 0;
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i] == rules.get(i).criteria()) {
+                flags |= rules.get(i).flags();
+            }
+        }
+        return flags;
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,281 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Shows a large {@link CodeflowGraph} as a hierarchy of collapsed module and package clusters. Only the visible level
+ * is put into the GraphStream graph: every class is drawn as its innermost collapsed cluster, and the references
+ * between the classes of two clusters are drawn as a single edge weighted by their count. When simplified, the
+ * drawn edges are thinned out like {@link GraphSimplification} thins out references: clusters and classes depending
+ * on each other in a cycle are drawn red, and an edge is left out when data reaches its target through other drawn
+ * nodes anyway.
+ */
+class ClusteredView {
+
+    static final String MODULE = "module:";
+    static final String PACKAGE = "package:";
+
+    /**
+     * Data flows along a reference, or against it for a reference to a super class or interface.
+     */
+    private static final int ALONG_REFERENCE = 1;
+    private static final int AGAINST_REFERENCE = 2;
+
+    private final Graph graph;
+    private final CodeflowGraph nodes;
+    private final Clusters clusters;
+    private final IntPredicate visible;
+    private final boolean simplify;
+    private final Set<String> expanded = new HashSet<>();
+
+    /**
+     * @param simplify whether to draw only the edges needed to show where data can flow, see
+     *                 {@link CodeflowSettings#isSimplifyEdges()}
+     */
+    ClusteredView(Graph graph, CodeflowGraph nodes, Clusters clusters, IntPredicate visible, boolean simplify) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.clusters = clusters;
+        this.visible = visible;
+        this.simplify = simplify;
+    }
+
+    static boolean isCluster(String nodeId) {
+        return nodeId.startsWith(MODULE) || nodeId.startsWith(PACKAGE);
+    }
+
+    /**
+     * Replaces the cluster {@code nodeId} by its members.
+     */
+    void expand(String nodeId) {
+        if (expanded.add(nodeId)) {
+            render();
+        }
+    }
+
+    /**
+     * Collapses the innermost expanded cluster containing the class or cluster {@code nodeId}.
+     */
+    void collapseParent(String nodeId) {
+        int id = nodes.id(nodeId);
+        String parent;
+        if (id >= 0) {
+            parent = packageCluster(id);
+        } else if (nodeId.startsWith(PACKAGE) && clusters.hasModules()) {
+            parent = MODULE + nodeId.substring(PACKAGE.length(), nodeId.indexOf('/'));
+        } else {
+            return;
+        }
+        expanded.removeIf(cluster -> cluster.equals(parent) || (parent.startsWith(MODULE)
+                && cluster.startsWith(PACKAGE + parent.substring(MODULE.length()) + "/")));
+        render();
+    }
+
+    /**
+     * Brings the GraphStream graph in line with the currently expanded clusters, only adding and removing what
+     * changed.
+     */
+    void render() {
+        String[] representatives = new String[nodes.size()];
+        Map<String, Integer> memberCounts = new HashMap<>();
+        for (int id = 0; id < nodes.size(); id++) {
+            if (visible.test(id)) {
+                representatives[id] = representative(id);
+                memberCounts.merge(representatives[id], 1, Integer::sum);
+            }
+        }
+        Map<String, int[]> edges = new HashMap<>();
+        for (int id = 0; id < nodes.size(); id++) {
+            int to = id;
+            if (representatives[to] == null) {
+                continue;
+            }
+            nodes.forEachReferencedFrom(to, from -> {
+                if (representatives[from] == null || representatives[from].equals(representatives[to])) {
+                    return;
+                }
+                int[] edge = edges.computeIfAbsent(representatives[from] + "->" + representatives[to], key -> new int[]{from, to, 0, 0});
+                edge[2]++;
+                edge[3] |= nodes.inheritsFrom(from, to) ? AGAINST_REFERENCE : ALONG_REFERENCE;
+            });
+        }
+        Set<String> cycles = simplify ? simplify(representatives, edges) : Set.of();
+
+        List<String> removedEdges = new ArrayList<>();
+        graph.edges().filter(edge -> !edges.containsKey(edge.getId())).forEach(edge -> removedEdges.add(edge.getId()));
+        removedEdges.forEach(graph::removeEdge);
+        List<String> removedNodes = new ArrayList<>();
+        graph.nodes().filter(node -> !memberCounts.containsKey(node.getId())).forEach(node -> removedNodes.add(node.getId()));
+        removedNodes.forEach(graph::removeNode);
+
+        for (int id = 0; id < nodes.size(); id++) {
+            String representative = representatives[id];
+            if (representative == null) {
+                continue;
+            }
+            Node node = graph.getNode(representative);
+            if (node == null) {
+                node = graph.addNode(representative);
+                node.setAttribute("ui.fullname", representative);
+            } else if (isCluster(representative) || !simplify) {
+                continue;
+            }
+            if (!isCluster(representative)) {
+                // styled again when simplified, the class may have joined or left a cycle
+                node.removeAttribute("ui.class");
+                CodeflowViewer.styleNode(node, nodes, id, false);
+                if (cycles.contains(representative) && !nodes.has(id, NodeFlags.CHANNEL)) {
+                    node.setAttribute("ui.class", "cycle");
+                }
+            }
+        }
+        // labelled on every render, a streamed preview renders the same clusters again with more members
+        memberCounts.forEach((representative, members) -> {
+            if (isCluster(representative)) {
+                Node node = graph.getNode(representative);
+                if (cycles.contains(representative)) {
+                    node.setAttribute("ui.class", "cluster", "cycle");
+                } else {
+                    node.setAttribute("ui.class", "cluster");
+                }
+                node.setAttribute("ui.label", clusterName(representative) + " (" + members + ")");
+                node.setAttribute("ui.size", 10 + 4 * Math.log(members));
+            }
+        });
+        edges.forEach((edgeId, edge) -> {
+            String source = representatives[edge[0]];
+            String target = representatives[edge[1]];
+            Edge addedEdge = graph.getEdge(edgeId);
+            if (addedEdge == null) {
+                addedEdge = graph.addEdge(edgeId, source, target, true);
+            }
+            if (isCluster(source) || isCluster(target)) {
+                addedEdge.setAttribute("ui.class", "cluster");
+                addedEdge.setAttribute("ui.label", String.valueOf(edge[2]));
+                addedEdge.setAttribute("ui.size", 1 + Math.log(edge[2]));
+            } else {
+                Object[] classes = CodeflowViewer.edgeClasses(nodes, edge[0], edge[1]);
+                if (classes.length > 0) {
+                    addedEdge.setAttribute("ui.class", classes);
+                }
+            }
+        });
+        place(representatives, edges.values());
+    }
+
+    /**
+     * Drops the edges which are not needed to show where data can flow between the drawn nodes, see
+     * {@link ReachabilityIndex#forEachReducedEdge}. The nodes are reduced as a graph of their own, so an edge between
+     * two clusters is kept or dropped as a whole.
+     *
+     * @param edges the edges to draw, by id, the dropped ones are removed
+     * @return the drawn nodes which depend on each other in a cycle
+     */
+    private static Set<String> simplify(String[] representatives, Map<String, int[]> edges) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int[] edge : edges.values()) {
+            int from = builder.intern(representatives[edge[0]], representatives[edge[0]], null, 0);
+            int to = builder.intern(representatives[edge[1]], representatives[edge[1]], null, 0);
+            if ((edge[3] & ALONG_REFERENCE) != 0) {
+                builder.addReference(from, to);
+            }
+            if ((edge[3] & AGAINST_REFERENCE) != 0) {
+                builder.addReference(to, from);
+            }
+        }
+        CodeflowGraph drawn = builder.freeze();
+        ReachabilityIndex flow = ReachabilityIndex.of(drawn);
+        LongOpenHashSet kept = new LongOpenHashSet();
+        flow.forEachReducedEdge((from, to) -> kept.add(flowEdge(from, to)));
+        // a kept flow is drawn by the first edge carrying it, an edge and its reverse may both carry it
+        edges.values().removeIf(edge -> {
+            int from = drawn.id(representatives[edge[0]]);
+            int to = drawn.id(representatives[edge[1]]);
+            boolean along = (edge[3] & ALONG_REFERENCE) != 0 && kept.remove(flowEdge(from, to));
+            boolean against = (edge[3] & AGAINST_REFERENCE) != 0 && kept.remove(flowEdge(to, from));
+            return !along && !against;
+        });
+
+        Set<String> cycles = new HashSet<>();
+        for (int id = 0; id < drawn.size(); id++) {
+            if (flow.componentSize(flow.component(id)) > 1) {
+                cycles.add(drawn.qualifiedName(id));
+            }
+        }
+        return cycles;
+    }
+
+    private static long flowEdge(int from, int to) {
+        return (long) from << 32 | to & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Lays the visible level out, a cluster is pinned to a side when all of its members are.
+     */
+    private void place(String[] representatives, Collection<int[]> edges) {
+        Map<String, Integer> index = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        IntArrayList sides = new IntArrayList();
+        for (int id = 0; id < nodes.size(); id++) {
+            if (representatives[id] == null) {
+                continue;
+            }
+            int side = LayeredLayout.side(nodes.flags(id));
+            Integer existing = index.putIfAbsent(representatives[id], keys.size());
+            if (existing == null) {
+                keys.add(representatives[id]);
+                sides.add(side);
+            } else if (sides.getInt(existing) != side) {
+                sides.set(existing, LayeredLayout.MIDDLE);
+            }
+        }
+        LayeredLayout layout = new LayeredLayout(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            layout.setNode(i, keys.get(i), sides.getInt(i));
+        }
+        edges.forEach(edge -> layout.addEdge(index.get(representatives[edge[0]]), index.get(representatives[edge[1]])));
+        GraphLayout computed = layout.compute();
+        for (int i = 0; i < keys.size(); i++) {
+            graph.getNode(keys.get(i)).setAttribute("xy", computed.x(i), computed.y(i));
+        }
+    }
+
+    private String representative(int id) {
+        if (clusters.hasModules()) {
+            String module = MODULE + clusters.module(id);
+            if (!expanded.contains(module)) {
+                return module;
+            }
+        }
+        String packageCluster = packageCluster(id);
+        if (!expanded.contains(packageCluster)) {
+            return packageCluster;
+        }
+        return nodes.qualifiedName(id);
+    }
+
+    private String packageCluster(int id) {
+        return PACKAGE + clusters.module(id) + "/" + clusters.packageName(id);
+    }
+
+    private static String clusterName(String nodeId) {
+        if (nodeId.startsWith(MODULE)) {
+            return nodeId.substring(MODULE.length());
+        }
+        String packageName = nodeId.substring(nodeId.indexOf('/') + 1);
+        return packageName.isEmpty() ? "(default package)" : packageName;
+    }
+}
@@ -0,0 +1,82 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The IntelliJ module and package of every class in a {@link CodeflowGraph}, the two cluster levels of the
+ * {@link ClusteredView}. Computed from the file index without loading any PSI, must be created in a read action.
+ */
+public class Clusters {
+
+    static final String NO_MODULE = "(no module)";
+
+    private final String[] modules;
+    private final String[] packages;
+    private final int moduleCount;
+
+    private Clusters(String[] modules, String[] packages) {
+        this.modules = modules;
+        this.packages = packages;
+        Set<String> distinct = new HashSet<>();
+        for (String module : modules) {
+            distinct.add(module);
+        }
+        this.moduleCount = distinct.size();
+    }
+
+    public static Clusters of(CodeflowGraph graph, Project project) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        String[] modules = new String[graph.size()];
+        String[] packages = new String[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            VirtualFile file = graph.fileUrl(id) == null ? null : VirtualFileManager.getInstance().findFileByUrl(graph.fileUrl(id));
+            Module module = file == null ? null : fileIndex.getModuleForFile(file);
+            String packageName = file == null || file.getParent() == null ? null : fileIndex.getPackageNameByDirectory(file.getParent());
+            modules[id] = module == null ? NO_MODULE : module.getName();
+            packages[id] = packageName == null ? packageName(graph.qualifiedName(id)) : packageName;
+        }
+        return new Clusters(modules, packages);
+    }
+
+    /**
+     * @return the packages of the classes as their qualified names tell, without any module; needs neither a read
+     * action nor the file index, for previews of a graph which is still being analysed
+     */
+    static Clusters byPackage(CodeflowGraph graph) {
+        String[] modules = new String[graph.size()];
+        String[] packages = new String[graph.size()];
+        Arrays.fill(modules, NO_MODULE);
+        for (int id = 0; id < graph.size(); id++) {
+            packages[id] = packageName(graph.qualifiedName(id));
+        }
+        return new Clusters(modules, packages);
+    }
+
+    private static String packageName(String qualifiedName) {
+        int dot = qualifiedName.lastIndexOf('.');
+        return dot < 0 ? "" : qualifiedName.substring(0, dot);
+    }
+
+    public String module(int id) {
+        return modules[id];
+    }
+
+    public String packageName(int id) {
+        return packages[id];
+    }
+
+    /**
+     * @return whether the classes are spread over more than one module, otherwise the module level is skipped
+     */
+    public boolean hasModules() {
+        return moduleCount > 1;
+    }
+}
@@ -0,0 +1,902 @@
+package com.raja.codelfow;
+
+import com.intellij.codeInsight.AnnotationUtil;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.impl.source.PsiJavaCodeReferenceElementImpl;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+
+/**
+ * The codeflow discovery pipeline. Must be run inside a read action; reports each {@link Phase}
+ * to the given indicator and checks for cancellation between searches.
+ */
+public class CodeflowAnalysis {
+
+    /**
+     * Minimum time between two partial graphs published while references are resolved.
+     */
+    private static final long PUBLISH_INTERVAL_MILLIS = 250;
+
+    private final Project project;
+    private final ProgressIndicator indicator;
+    /**
+     * The modules to analyse, {@code null} for the whole project.
+     */
+    private final List<Module> modules;
+    private final ProductionScope production;
+    private final GlobalSearchScope scope;
+    @Getter
+    private Set<String> changedFiles = emptySet();
+    /**
+     * Measurements of the last run.
+     */
+    @Getter
+    private final AnalysisMetrics metrics;
+    private ClassificationRules rules;
+    /**
+     * Receives the partial graphs of a running analysis, {@code null} if nobody follows it.
+     */
+    private volatile Consumer<CodeflowGraph> partialGraphs;
+    /**
+     * The references found so far by the running reference search, only kept while partial graphs are published.
+     */
+    private volatile GraphBuilder preview;
+    private long lastPublished;
+
+    public CodeflowAnalysis(Project project, ProgressIndicator indicator) {
+        this(project, indicator, null);
+    }
+
+    /**
+     * @param modules the modules to analyse, {@code null} for the whole project; classes and references in other
+     *                modules are left out
+     */
+    public CodeflowAnalysis(Project project, ProgressIndicator indicator, Collection<Module> modules) {
+        this.project = project;
+        this.indicator = indicator;
+        this.modules = modules == null ? null : List.copyOf(modules);
+        this.production = ProductionScope.of(project);
+        this.scope = modules == null
+                ? ProductionScope.forAnalysis(project)
+                : ProductionScope.forAnalysis(project).intersectWith(ModuleShard.modulesScope(modules));
+        this.metrics = new AnalysisMetrics(() -> DiscoveryContext.getInstance(project).getSearchCount());
+    }
+
+    /**
+     * Returns the cached graph if no Java file changed since it was computed. Otherwise runs the discovery
+     * and resolves references again for the components in changed files only, reusing the cached references
+     * of all other components. The {@link CodeflowSettings.Engine#INDEX index engine} does not use the cache,
+     * the index is kept up to date by the platform, and always analyses the whole project. A
+     * {@link #isPartial() partial} analysis neither uses nor updates the cache.
+     */
+    public CachedGraph run() {
+        rules = null;
+        metrics.reset();
+        metrics.setEngine(CodeflowSettings.getInstance(project).getEngine().name());
+        try {
+            CachedGraph graph = analyse();
+            metrics.graph(graph.getGraph());
+            return graph;
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Publishes the graph as far as it is discovered to {@code partialGraphs} while the analysis runs: the components
+     * after each discovery phase, then the references as they are found, at most every
+     * {@link #PUBLISH_INTERVAL_MILLIS}. The partial graphs are published from the analysing threads.
+     *
+     * @param partialGraphs the consumer of the partial graphs, {@code null} to stop publishing
+     */
+    public void streamTo(Consumer<CodeflowGraph> partialGraphs) {
+        this.partialGraphs = partialGraphs;
+    }
+
+    /**
+     * @return whether only some modules are analysed, the result must not replace the cached graph of the project
+     */
+    public boolean isPartial() {
+        return modules != null && CodeflowSettings.getInstance(project).getEngine() != CodeflowSettings.Engine.INDEX;
+    }
+
+    private CachedGraph analyse() {
+        indicator.setIndeterminate(false);
+        String settingsKey = CodeflowSettings.getInstance(project).graphKey();
+        if (CodeflowSettings.getInstance(project).getEngine() == CodeflowSettings.Engine.INDEX) {
+            return new CachedGraph(settingsKey, emptyMap(), new IndexedDiscovery(project, indicator, metrics).run());
+        }
+        if (isPartial()) {
+            return new CachedGraph(settingsKey, emptyMap(), discover(null));
+        }
+
+        Map<String, Long> stamps = currentStamps();
+        GraphCache cache = GraphCache.getInstance(project);
+        CachedGraph cached = cache.get();
+        if (cached != null && !cached.getSettingsKey().equals(settingsKey)) {
+            cached = null;
+        }
+        changedFiles = cached == null ? cache.dirtyFiles() : cache.changedFiles(cached, stamps);
+        if (cached != null && changedFiles.isEmpty()) {
+            metrics.setFromCache(true);
+            return cached;
+        }
+        return new CachedGraph(settingsKey, stamps, discover(cached));
+    }
+
+    /**
+     * @param cached the graph to reuse the references of unchanged components from, may be {@code null}
+     */
+    private CodeflowGraph discover(CachedGraph cached) {
+        phase(Phase.COMPONENTS);
+        Set<PsiClassImpl> components = new HashSet<>();
+        components.addAll(addComponentAnnotatedClasses(project));
+        components.addAll(addAutowiredInterfaces(project));
+        components.addAll(rules().components(scope));
+        publishComponents(components, emptySet(), emptySet());
+
+        phase(Phase.BEANS);
+        components.addAll(addBeans(project));
+        publishComponents(components, emptySet(), emptySet());
+
+        phase(Phase.REPOSITORIES);
+        Set<PsiClassImpl> repositoryInterfaces = addRepositoryInterfaces(project);
+        components.addAll(repositoryInterfaces);
+        publishComponents(components, repositoryInterfaces, emptySet());
+
+        phase(Phase.FEIGN);
+        Set<PsiClassImpl> feignInterfaces = addFeignclientInterfaces(project);
+        components.addAll(feignInterfaces);
+        publishComponents(components, repositoryInterfaces, feignInterfaces);
+
+        phase(Phase.PUBSUB);
+        ChannelTopology channels = ChannelTopology.of(project, scope, metrics, isStubsOnly());
+
+        return addToNodesAndAddReferences(
+                components,
+                repositoryInterfaces,
+                feignInterfaces,
+                channels,
+                cached);
+    }
+
+    private Map<String, Long> currentStamps() {
+        Map<String, Long> stamps = new HashMap<>();
+        FileTypeIndex.getFiles(JavaFileType.INSTANCE, scope)
+                .forEach(file -> stamps.put(file.getUrl(), file.getTimeStamp()));
+        return stamps;
+    }
+
+    private void phase(Phase phase) {
+        ProgressManager.checkCanceled();
+        metrics.startPhase(phase);
+        indicator.setText(phase.getText());
+        indicator.setText2(null);
+        indicator.setFraction(phase.startFraction());
+    }
+
+    private Set<PsiClassImpl> addRepositoryInterfaces(Project project) {
+        PsiClass repositoryClass = JavaPsiFacadeImpl.getInstance(project).findClass("org.springframework.data.repository.Repository", GlobalSearchScope.allScope(project));
+        if (repositoryClass == null) {
+            return emptySet();
+        }
+        Set<PsiClassImpl> allClasses = new HashSet<>();
+        Collection<PsiClass> inheritors = ClassInheritorsSearch.search(repositoryClass, scope, true).findAll();
+        metrics.searched(inheritors.size());
+        inheritors.stream()
+                .filter(psiClass -> psiClass instanceof PsiClassImpl)
+                .map(psiClass -> (PsiClassImpl) psiClass)
+                .forEach(allClasses::add);
+        return allClasses;
+    }
+
+    private Set<PsiClassImpl> addFeignclientInterfaces(Project project) {
+        return new HashSet<>(DiscoveryContext.getInstance(project).annotatedClasses(DiscoveryContext.FEIGN_CLIENT, scope));
+    }
+
+    private CodeflowGraph addToNodesAndAddReferences(Set<PsiClassImpl> components,
+                                                     Set<PsiClassImpl> repositoryInterfaces,
+                                                     Set<PsiClassImpl> feignInterfaces,
+                                                     ChannelTopology channels,
+                                                     CachedGraph cached) {
+        components = inScope(components);
+        GraphBuilder nodes = new GraphBuilder();
+        addComponents(nodes, components, repositoryInterfaces, feignInterfaces);
+        addChannels(nodes, channels);
+
+        phase(Phase.REFERENCES);
+        try {
+            if (cached == null) {
+                startPreview(nodes);
+                resolveReferences(nodes, components);
+            } else {
+                List<PsiClassImpl> searched = reuseCachedReferences(nodes, components, cached.getGraph());
+                startPreview(nodes);
+                resolveReferences(nodes, searched);
+                addReferencesFromChangedFiles(nodes, components);
+            }
+        } finally {
+            preview = null;
+        }
+        return nodes.freeze();
+    }
+
+    private void addComponents(GraphBuilder nodes,
+                               Set<PsiClassImpl> components,
+                               Set<PsiClassImpl> repositoryInterfaces,
+                               Set<PsiClassImpl> feignInterfaces) {
+        components.forEach(clazz -> {
+            int flags = NodeFlags.COMPONENT | rules().flags(clazz);
+            if (isTest(clazz)) {
+                flags |= NodeFlags.TEST;
+            }
+            if (repositoryInterfaces.contains(clazz)) {
+                flags |= NodeFlags.REPOSITORY;
+            }
+            if (feignInterfaces.contains(clazz)) {
+                flags |= NodeFlags.REPOSITORY | NodeFlags.INTERFACE;
+            }
+            if (clazz.isInterface()) {
+                flags |= NodeFlags.INTERFACE;
+            }
+            nodes.intern(key(clazz), clazz.getName(), fileUrl(clazz), flags);
+        });
+        components.forEach(clazz -> {
+            int id = nodes.id(key(clazz));
+            Arrays.stream(clazz.getSupers())
+                    .filter(psiClass -> psiClass instanceof PsiClassImpl)
+                    .mapToInt(superClass -> nodes.id(key(superClass)))
+                    .filter(superId -> superId >= 0)
+                    .forEach(superId -> nodes.addInheritance(id, superId));
+        });
+    }
+
+    /**
+     * Publishes the components discovered so far, without any reference.
+     */
+    private void publishComponents(Set<PsiClassImpl> components,
+                                   Set<PsiClassImpl> repositoryInterfaces,
+                                   Set<PsiClassImpl> feignInterfaces) {
+        Consumer<CodeflowGraph> consumer = partialGraphs;
+        if (consumer == null) {
+            return;
+        }
+        GraphBuilder partial = new GraphBuilder();
+        addComponents(partial, components.stream().filter(this::isInScope).collect(Collectors.toSet()),
+                repositoryInterfaces, feignInterfaces);
+        consumer.accept(partial.freeze());
+    }
+
+    /**
+     * Publishes {@code nodes} and, while references are resolved, collects the found references in a
+     * {@link #preview} of the graph which is published as it grows.
+     */
+    private void startPreview(GraphBuilder nodes) {
+        Consumer<CodeflowGraph> consumer = partialGraphs;
+        if (consumer == null) {
+            return;
+        }
+        CodeflowGraph graph = nodes.freeze();
+        consumer.accept(graph);
+        lastPublished = System.currentTimeMillis();
+        preview = GraphBuilder.of(graph);
+    }
+
+    /**
+     * Adds the references found by a search to the {@link #preview}, if there is one, and publishes it unless the
+     * last partial graph was published less than {@link #PUBLISH_INTERVAL_MILLIS} ago.
+     */
+    private void previewReferences(Consumer<GraphBuilder> found) {
+        GraphBuilder current = preview;
+        Consumer<CodeflowGraph> consumer = partialGraphs;
+        if (current == null || consumer == null) {
+            return;
+        }
+        found.accept(current);
+        synchronized (current) {
+            long now = System.currentTimeMillis();
+            if (now - lastPublished < PUBLISH_INTERVAL_MILLIS) {
+                return;
+            }
+            lastPublished = now;
+        }
+        consumer.accept(current.freeze());
+    }
+
+    /**
+     * Adds a node per channel with the edges publisher -> channel -> consumer. Consumers are entry points; publishers
+     * publishing to a channel nobody in the project consumes, or to a channel whose name is unknown, are drawn as
+     * sinks like repositories.
+     */
+    private void addChannels(GraphBuilder nodes, ChannelTopology channels) {
+        channels.getConsumers().forEach((consumer, names) -> {
+            int id = intern(nodes, consumer);
+            nodes.addFlags(id, NodeFlags.PUBSUB);
+            names.forEach(name -> nodes.addReference(channel(nodes, name), id));
+        });
+        channels.getPublishers().forEach((publisher, names) -> {
+            int id = intern(nodes, publisher);
+            if (names.isEmpty() || !names.stream().allMatch(channels::isConsumed)) {
+                nodes.addFlags(id, NodeFlags.REPOSITORY);
+            }
+            names.forEach(name -> nodes.addReference(id, channel(nodes, name)));
+        });
+    }
+
+    private static int channel(GraphBuilder nodes, String name) {
+        return nodes.intern(ChannelTopology.key(name), name, null, NodeFlags.CHANNEL);
+    }
+
+    /**
+     * Copies the cached references of every component which is unchanged since {@code cached} was computed,
+     * leaving out references from changed files and from channels, which {@link #addChannels} adds again.
+     *
+     * @return the components whose references have to be searched again
+     */
+    private List<PsiClassImpl> reuseCachedReferences(GraphBuilder nodes, Set<PsiClassImpl> components, CodeflowGraph cached) {
+        List<PsiClassImpl> toResolve = new ArrayList<>();
+        IntArrayList copiedFrom = new IntArrayList();
+        IntArrayList copiedTo = new IntArrayList();
+        components.forEach(clazz -> {
+            int id = nodes.id(key(clazz));
+            int cachedId = cached.id(key(clazz));
+            if (cachedId < 0 || !cached.has(cachedId, NodeFlags.COMPONENT) || changedFiles.contains(fileUrl(clazz))) {
+                toResolve.add(clazz);
+                return;
+            }
+            cached.forEachReferencedFrom(cachedId, cachedFrom -> {
+                if (cached.has(cachedFrom, NodeFlags.CHANNEL) || changedFiles.contains(cached.fileUrl(cachedFrom))) {
+                    return;
+                }
+                int from = nodes.id(cached.qualifiedName(cachedFrom));
+                if (from < 0) {
+                    from = nodes.intern(cached.qualifiedName(cachedFrom),
+                            cached.name(cachedFrom),
+                            cached.fileUrl(cachedFrom),
+                            cached.flags(cachedFrom) & NodeFlags.TEST);
+                    copiedFrom.add(cachedFrom);
+                    copiedTo.add(from);
+                }
+                nodes.addReference(from, id);
+            });
+        });
+        for (int i = 0; i < copiedFrom.size(); i++) {
+            int id = copiedTo.getInt(i);
+            cached.forEachInheritsFrom(copiedFrom.getInt(i), cachedSuper -> {
+                int superId = nodes.id(cached.qualifiedName(cachedSuper));
+                if (superId >= 0) {
+                    nodes.addInheritance(id, superId);
+                }
+            });
+        }
+        return toResolve;
+    }
+
+    /**
+     * Adds the references from the classes in changed files to all components, which covers references that
+     * were added to unchanged components.
+     */
+    private void addReferencesFromChangedFiles(GraphBuilder nodes, Set<PsiClassImpl> components) {
+        if (isStubsOnly()) {
+            VirtualFileManager fileManager = VirtualFileManager.getInstance();
+            List<VirtualFile> files = changedFiles.stream()
+                    .map(fileManager::findFileByUrl)
+                    .filter(file -> file != null && file.isValid())
+                    .toList();
+            findStubReferences(nodes, components, GlobalSearchScope.filesScope(project, files));
+            return;
+        }
+        changedFiles.forEach(url -> {
+            ProgressManager.checkCanceled();
+            PsiJavaFile psiFile = javaFile(url);
+            if (psiFile != null) {
+                addReferencesFrom(nodes, psiFile);
+            }
+        });
+    }
+
+    /**
+     * @return the Java file with {@code url} in the analysis scope, {@code null} if there is none (anymore)
+     */
+    private PsiJavaFile javaFile(String url) {
+        VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(url);
+        if (file == null || !file.isValid() || !scope.contains(file)) {
+            return null;
+        }
+        return PsiManager.getInstance(project).findFile(file) instanceof PsiJavaFile javaFile ? javaFile : null;
+    }
+
+    /**
+     * Adds the references from the top level classes of {@code psiFile} to every component in {@code nodes} it
+     * references.
+     */
+    private void addReferencesFrom(GraphBuilder nodes, PsiJavaFile psiFile) {
+        List<PsiClass> fromClasses = List.of(psiFile.getClasses());
+        PsiTreeUtil.findChildrenOfType(psiFile, PsiJavaCodeReferenceElement.class).stream()
+                .map(PsiJavaCodeReferenceElement::resolve)
+                .filter(psiElement -> psiElement instanceof PsiClassImpl)
+                .map(psiElement -> (PsiClassImpl) psiElement)
+                .distinct()
+                .forEach(target -> {
+                    int to = nodes.id(key(target));
+                    if (to >= 0 && nodes.has(to, NodeFlags.COMPONENT)) {
+                        fromClasses.forEach(fromClass -> addReference(nodes, fromClass, to));
+                    }
+                });
+    }
+
+    /**
+     * Analyses the classes declared in {@code files} again and returns {@code current} with them replaced, everything
+     * else is copied. A class of those files stays in the graph if it still exists, keeping the flags which do not
+     * come from its annotations, and becomes a component if it is annotated with one of
+     * {@code componentAnnotations}. The references from the files are resolved again and the references to new
+     * components searched; references to channels are kept. Classes that no longer reference anything are dropped.
+     * Costs about as much as the changed files and the references to new components, independent of the project
+     * size.
+     */
+    CodeflowGraph reanalyse(CodeflowGraph current, Set<String> files, Set<String> componentAnnotations) {
+        // the stereotypes and their annotation closures may have changed since the last analysis
+        rules = null;
+        GraphBuilder nodes = new GraphBuilder();
+        for (int id = 0; id < current.size(); id++) {
+            if (!files.contains(current.fileUrl(id))) {
+                nodes.intern(current.qualifiedName(id), current.name(id), current.fileUrl(id), current.flags(id));
+            }
+        }
+        List<PsiJavaFile> javaFiles = new TreeSet<>(files).stream()
+                .map(this::javaFile)
+                .filter(Objects::nonNull)
+                .toList();
+        List<PsiClass> keptClasses = new ArrayList<>();
+        List<PsiClass> newComponents = new ArrayList<>();
+        javaFiles.forEach(psiFile -> PsiTreeUtil.findChildrenOfType(psiFile, PsiClass.class).forEach(psiClass -> {
+            if (psiClass.getQualifiedName() == null) {
+                return;
+            }
+            int id = current.id(key(psiClass));
+            int flags = id < 0 ? 0 : current.flags(id) & ~(NodeFlags.CONTROLLER | NodeFlags.CONFIG);
+            int classified = rules().flags(psiClass);
+            if (AnnotationUtil.isAnnotated(psiClass, componentAnnotations, 0) || NodeFlags.has(classified, NodeFlags.COMPONENT)) {
+                if (!NodeFlags.has(flags, NodeFlags.COMPONENT)) {
+                    newComponents.add(psiClass);
+                }
+                flags |= NodeFlags.COMPONENT;
+            } else if (id < 0) {
+                return;
+            }
+            if (NodeFlags.has(flags, NodeFlags.COMPONENT)) {
+                flags |= classified;
+            }
+            if (isTest(psiClass)) {
+                flags |= NodeFlags.TEST;
+            }
+            if (psiClass.isInterface()) {
+                flags |= NodeFlags.INTERFACE;
+            }
+            nodes.intern(key(psiClass), psiClass.getName(), fileUrl(psiClass), flags);
+            keptClasses.add(psiClass);
+        }));
+        keptClasses.forEach(psiClass -> {
+            int id = nodes.id(key(psiClass));
+            Arrays.stream(psiClass.getSupers())
+                    .filter(superClass -> superClass instanceof PsiClassImpl)
+                    .mapToInt(superClass -> nodes.id(key(superClass)))
+                    .filter(superId -> superId >= 0)
+                    .forEach(superId -> nodes.addInheritance(id, superId));
+        });
+
+        javaFiles.forEach(psiFile -> {
+            ProgressManager.checkCanceled();
+            addReferencesFrom(nodes, psiFile);
+        });
+        newComponents.forEach(component -> {
+            int to = nodes.id(key(component));
+            referencingClasses(component, scope).forEach(fromClass -> addReference(nodes, fromClass, to));
+        });
+
+        for (int id = 0; id < current.size(); id++) {
+            int to = nodes.id(current.qualifiedName(id));
+            if (to < 0) {
+                continue;
+            }
+            boolean toChannel = current.has(id, NodeFlags.CHANNEL);
+            current.forEachReferencedFrom(id, from -> {
+                int fromId = nodes.id(current.qualifiedName(from));
+                if (fromId >= 0 && (toChannel || !files.contains(current.fileUrl(from)))) {
+                    nodes.addReference(fromId, to);
+                }
+            });
+            if (!files.contains(current.fileUrl(id))) {
+                current.forEachInheritsFrom(id, parent -> {
+                    int parentId = nodes.id(current.qualifiedName(parent));
+                    if (parentId >= 0) {
+                        nodes.addInheritance(to, parentId);
+                    }
+                });
+            }
+        }
+        return withoutOrphans(nodes.freeze());
+    }
+
+    /**
+     * @return {@code graph} without the classes which are neither components nor channels and neither reference
+     * nor are referenced by anything
+     */
+    private static CodeflowGraph withoutOrphans(CodeflowGraph graph) {
+        GraphBuilder nodes = new GraphBuilder();
+        for (int id = 0; id < graph.size(); id++) {
+            int[] references = {0};
+            graph.forEachReference(id, to -> references[0]++);
+            if (graph.has(id, NodeFlags.COMPONENT) || graph.has(id, NodeFlags.CHANNEL)
+                    || references[0] > 0 || graph.referencedFrom(id).length > 0) {
+                nodes.intern(graph.qualifiedName(id), graph.name(id), graph.fileUrl(id), graph.flags(id));
+            }
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            int to = nodes.id(graph.qualifiedName(id));
+            if (to < 0) {
+                continue;
+            }
+            graph.forEachReferencedFrom(id, from -> nodes.addReference(nodes.id(graph.qualifiedName(from)), to));
+            graph.forEachInheritsFrom(id, parent -> {
+                int parentId = nodes.id(graph.qualifiedName(parent));
+                if (parentId >= 0) {
+                    nodes.addInheritance(to, parentId);
+                }
+            });
+        }
+        return nodes.freeze();
+    }
+
+    /**
+     * Splits {@code components} into {@link ModuleShard}s, searches the references of every component in the scope
+     * of its shard and merges the shards into {@code nodes}. The {@link CodeflowSettings.Engine#SCAN scan engine}
+     * scans the files instead, see {@link #scanReferences}, the {@link CodeflowSettings.Engine#STUBS stubs engine}
+     * reads their stubs, see {@link #findStubReferences}.
+     */
+    private void resolveReferences(GraphBuilder nodes, Collection<PsiClassImpl> components) {
+        if (CodeflowSettings.getInstance(project).getEngine() == CodeflowSettings.Engine.SCAN) {
+            scanReferences(nodes, components);
+            return;
+        }
+        if (isStubsOnly()) {
+            findStubReferences(nodes, components, null);
+            return;
+        }
+        List<ModuleShard> shards = ModuleShard.split(project, components, scope);
+        AtomicInteger done = new AtomicInteger();
+        runInParallel(shards.stream()
+                .flatMap(shard -> shard.getComponents().stream().<Runnable>map(clazz -> () -> {
+                    findReferences(shard, clazz);
+                    previewReferences(partial -> {
+                        int to = partial.id(key(clazz));
+                        shard.referencingClasses(clazz).forEach(fromClass -> addReference(partial, fromClass, to));
+                    });
+                    referenceResolved(clazz.getName(), done.incrementAndGet(), components.size());
+                }))
+                .toList());
+        shards.forEach(shard -> shard.getComponents().forEach(clazz -> {
+            int to = nodes.id(key(clazz));
+            shard.referencingClasses(clazz).forEach(fromClass -> addReference(nodes, fromClass, to));
+        }));
+    }
+
+    /**
+     * Inverts the reference search: visits every Java file in the analysis scope once and resolves the references
+     * named like one of {@code components}, every distinct reference text once per file. The top level classes of a
+     * file reference every component resolved in it, just like {@link #referencingClasses} reports them. The files
+     * are merged into {@code nodes} in the order of their URLs once all of them are scanned.
+     */
+    private void scanReferences(GraphBuilder nodes, Collection<PsiClassImpl> components) {
+        Set<String> keys = components.stream().map(CodeflowAnalysis::key).collect(Collectors.toSet());
+        Set<String> names = components.stream().map(PsiClass::getName).filter(Objects::nonNull).collect(Collectors.toSet());
+        List<VirtualFile> files = FileTypeIndex.getFiles(JavaFileType.INSTANCE, scope).stream()
+                .sorted(Comparator.comparing(VirtualFile::getUrl))
+                .toList();
+        AtomicReferenceArray<ScannedFile> scanned = new AtomicReferenceArray<>(files.size());
+        AtomicInteger done = new AtomicInteger();
+        runInParallel(IntStream.range(0, files.size())
+                .<Runnable>mapToObj(i -> () -> {
+                    ScannedFile file = scan(files.get(i), keys, names);
+                    scanned.set(i, file);
+                    if (file != null) {
+                        previewReferences(partial -> file.components().forEach(component -> {
+                            int to = partial.id(component);
+                            file.classes().forEach(fromClass -> addReference(partial, fromClass, to));
+                        }));
+                    }
+                    referenceResolved(files.get(i).getName(), done.incrementAndGet(), files.size());
+                })
+                .toList());
+        for (int i = 0; i < files.size(); i++) {
+            ScannedFile file = scanned.get(i);
+            if (file == null) {
+                continue;
+            }
+            file.components().forEach(component -> {
+                int to = nodes.id(component);
+                file.classes().forEach(fromClass -> addReference(nodes, fromClass, to));
+            });
+        }
+    }
+
+    /**
+     * Finds the references of every component in the scope of its {@link ModuleShard} with {@link StubReferences}.
+     * Only the names of the components and of the referencing classes are kept while the lookups run.
+     *
+     * @param files the files to restrict the lookups to, {@code null} for no restriction
+     */
+    private void findStubReferences(GraphBuilder nodes, Collection<PsiClassImpl> components, GlobalSearchScope files) {
+        StubReferences references = new StubReferences(project, metrics, this::isTest);
+        List<StubReferences.Target> targets = ModuleShard.split(project, components, scope).stream()
+                .flatMap(shard -> shard.getComponents().stream().map(clazz -> StubReferences.Target.of(clazz,
+                        files == null ? shard.getReferenceScope() : shard.getReferenceScope().intersectWith(files))))
+                .toList();
+        AtomicReferenceArray<List<StubReferences.Referrer>> found = new AtomicReferenceArray<>(targets.size());
+        AtomicInteger done = new AtomicInteger();
+        runInParallel(IntStream.range(0, targets.size())
+                .<Runnable>mapToObj(i -> () -> {
+                    List<StubReferences.Referrer> referrers = references.referrers(targets.get(i));
+                    found.set(i, referrers);
+                    previewReferences(partial -> {
+                        int to = partial.id(targets.get(i).key());
+                        referrers.forEach(referrer -> partial.addReference(intern(partial, referrer), to));
+                    });
+                    referenceResolved(targets.get(i).name(), done.incrementAndGet(), targets.size());
+                })
+                .toList());
+        for (int i = 0; i < targets.size(); i++) {
+            int to = nodes.id(targets.get(i).key());
+            found.get(i).forEach(referrer -> nodes.addReference(intern(nodes, referrer), to));
+        }
+    }
+
+    private boolean isStubsOnly() {
+        return CodeflowSettings.getInstance(project).getEngine() == CodeflowSettings.Engine.STUBS;
+    }
+
+    private record ScannedFile(List<PsiClass> classes, Set<String> components) {
+    }
+
+    /**
+     * @return the top level classes of {@code file} and the components they reference, {@code null} if they
+     * reference none
+     */
+    private ScannedFile scan(VirtualFile file, Set<String> keys, Set<String> names) {
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PsiJavaFile)) {
+            return null;
+        }
+        Set<String> resolved = new HashSet<>();
+        Set<String> components = new TreeSet<>();
+        psiFile.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitReferenceElement(PsiJavaCodeReferenceElement reference) {
+                super.visitReferenceElement(reference);
+                if (names.contains(reference.getReferenceName())
+                        && resolved.add(reference.getText())
+                        && reference.resolve() instanceof PsiClass psiClass
+                        && keys.contains(key(psiClass))) {
+                    components.add(key(psiClass));
+                }
+            }
+        });
+        metrics.searched(components.size());
+        if (components.isEmpty()) {
+            return null;
+        }
+        return new ScannedFile(List.of(((PsiJavaFile) psiFile).getClasses()), components);
+    }
+
+    /**
+     * Runs {@code tasks} on a bounded pool sized by {@link CodeflowSettings#getParallelism()}. Every task runs in
+     * its own read action which gives way to pending write actions; the whole analysis is then cancelled and
+     * restarted by the non-blocking read action.
+     */
+    private void runInParallel(List<Runnable> tasks) {
+        int parallelism = CodeflowSettings.getInstance(project).getParallelism();
+        if (parallelism <= 1) {
+            tasks.forEach(task -> {
+                ProgressManager.checkCanceled();
+                task.run();
+            });
+            return;
+        }
+        ProgressIndicator readActionIndicator = ProgressManager.getGlobalProgressIndicator();
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Codeflow references", parallelism);
+        List<Future<Boolean>> futures = tasks.stream()
+                .map(task -> executor.submit(() -> ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(task, readActionIndicator)))
+                .toList();
+        try {
+            for (Future<Boolean> future : futures) {
+                if (!ProgressIndicatorUtils.awaitWithCheckCanceled(future)) {
+                    throw new ProcessCanceledException();
+                }
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+            executor.shutdownNow();
+        }
+    }
+
+    private void findReferences(ModuleShard shard, PsiClassImpl clazz) {
+        List<PsiClass> referencingClasses = referencingClasses(clazz, shard.getReferenceScope());
+        metrics.searched(referencingClasses.size());
+        shard.found(clazz, referencingClasses);
+    }
+
+    private void referenceResolved(String name, int done, int total) {
+        indicator.setText2(name);
+        indicator.setFraction(Phase.REFERENCES.fraction(done, total));
+    }
+
+    /**
+     * Drops the classes outside the analysis scope. The searches already run in it, this only matters for
+     * classes that were reached through supertypes or {@code @Bean} return types.
+     */
+    private Set<PsiClassImpl> inScope(Set<PsiClassImpl> components) {
+        Set<PsiClassImpl> kept = components.stream()
+                .filter(this::isInScope)
+                .collect(Collectors.toSet());
+        metrics.filtered(components.size(), kept.size());
+        return kept;
+    }
+
+    private boolean isInScope(PsiClass psiClass) {
+        VirtualFile file = psiClass.getContainingFile().getVirtualFile();
+        return file != null && scope.contains(file);
+    }
+
+    /**
+     * @return the classification rules of the project, compiled on first use in each run
+     */
+    private ClassificationRules rules() {
+        if (rules == null) {
+            rules = ClassificationRules.of(project);
+        }
+        return rules;
+    }
+
+    private boolean isTest(PsiClass psiClass) {
+        return hasTestLikeName(psiClass) || production.isTestFile(psiClass.getContainingFile().getVirtualFile());
+    }
+
+    static String fileUrl(PsiClass psiClass) {
+        VirtualFile file = psiClass.getContainingFile().getVirtualFile();
+        return file == null ? null : file.getUrl();
+    }
+
+    private Set<PsiClassImpl> addAutowiredInterfaces(Project project) {
+        DiscoveryContext context = DiscoveryContext.getInstance(project);
+        Set<PsiClassImpl> allClasses = new HashSet<>();
+        context.annotatedClasses(DiscoveryContext.COMPONENT, scope).forEach(clazz -> allClasses.addAll(superClasses(clazz)));
+        context.beanClasses(scope).forEach(clazz -> allClasses.addAll(superClasses(clazz)));
+        return allClasses;
+    }
+
+    private static List<PsiClassImpl> superClasses(PsiClass clazz) {
+        return Arrays.stream(clazz.getSupers())
+                .filter(psiClass -> psiClass instanceof PsiClassImpl)
+                .map(psiClass -> (PsiClassImpl) psiClass)
+                .toList();
+    }
+
+    private Set<PsiClassImpl> addComponentAnnotatedClasses(Project project) {
+        return new HashSet<>(DiscoveryContext.getInstance(project).annotatedClasses(DiscoveryContext.COMPONENT, scope));
+    }
+
+    private Set<PsiClassImpl> addBeans(Project project) {
+        return new HashSet<>(DiscoveryContext.getInstance(project).beanClasses(scope));
+    }
+
+    private void addReference(GraphBuilder nodes, PsiClass fromClass, int to) {
+        nodes.addReference(intern(nodes, fromClass), to);
+    }
+
+    /**
+     * @return the id of {@code psiClass}, adding it as a plain class inheriting from the classes in the graph if it
+     * is not in the graph yet
+     */
+    private int intern(GraphBuilder nodes, PsiClass psiClass) {
+        int id = nodes.id(key(psiClass));
+        if (id < 0) {
+            boolean test = isTest(psiClass);
+            id = nodes.intern(key(psiClass), psiClass.getName(), fileUrl(psiClass), test ? NodeFlags.TEST : 0);
+            if (!test) {
+                int child = id;
+                Arrays.stream(psiClass.getSupers())
+                        .filter(superClass -> superClass instanceof PsiClassImpl)
+                        .mapToInt(superClass -> nodes.id(key(superClass)))
+                        .filter(superId -> superId >= 0)
+                        .forEach(superId -> nodes.addInheritance(child, superId));
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the class {@code referrer}, adding it like {@link #intern(GraphBuilder, PsiClass)} does if it
+     * is not in the graph yet
+     */
+    private static int intern(GraphBuilder nodes, StubReferences.Referrer referrer) {
+        int id = nodes.id(referrer.key());
+        if (id < 0) {
+            id = nodes.intern(referrer.key(), referrer.name(), referrer.fileUrl(), referrer.test() ? NodeFlags.TEST : 0);
+            for (String superKey : referrer.superKeys()) {
+                int superId = nodes.id(superKey);
+                if (superId >= 0) {
+                    nodes.addInheritance(id, superId);
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return the key of {@code psiClass} in the graph, its qualified name if it has one
+     */
+    static String key(PsiClass psiClass) {
+        String qualifiedName = psiClass.getQualifiedName();
+        return qualifiedName != null ? qualifiedName : psiClass.getName();
+    }
+
+    private static boolean hasTestLikeName(PsiClass fromClass) {
+        return hasTestLikeName(fromClass.getName());
+    }
+
+    static boolean hasTestLikeName(String name) {
+        return name.endsWith("Test") ||
+                name.endsWith("IT") ||
+                name.endsWith("AT") ||
+                name.endsWith("E2E");
+    }
+
+    /**
+     * @return the top level classes of the files in {@code scope} which reference {@code clazz}
+     */
+    static List<PsiClass> referencingClasses(PsiClass clazz, GlobalSearchScope scope) {
+        return referencingClasses(ReferencesSearch.search(clazz, scope).findAll());
+    }
+
+    /**
+     * @return the top level classes of the files containing {@code references}
+     */
+    static List<PsiClass> referencingClasses(Collection<PsiReference> references) {
+        return references.stream()
+                .filter(psiReference -> psiReference instanceof PsiJavaCodeReferenceElementImpl)
+                .map(psiReference -> ((PsiJavaCodeReferenceElementImpl) psiReference).getContainingFile())
+                .filter(psiFile -> psiFile instanceof PsiClassOwner)
+                .flatMap(psiFile -> Arrays.stream(((PsiClassOwner) psiFile).getClasses()))
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,116 @@
+package com.raja.codelfow;
+
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ex.ApplicationEx;
+import com.intellij.openapi.application.ex.ApplicationManagerEx;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Headless entry point writing the codeflow graph of a project to a file:
+ * {@code idea codeflow-export <project dir> <output file> [dot|graphml|json|snapshot]}. Without an explicit format it
+ * is taken from the output file's extension, {@code .codeflow} writes a {@link GraphSnapshot}. Runs the same analysis
+ * as the draw action, including the graph cache.
+ */
+public class CodeflowExportStarter implements ApplicationStarter {
+
+    private static final Logger LOG = Logger.getInstance(CodeflowExportStarter.class);
+    private static final String USAGE = "Usage: codeflow-export <project dir> <output file> [dot|graphml|json|snapshot]";
+    private static final String SNAPSHOT = "snapshot";
+
+    @Override
+    public String getCommandName() {
+        return "codeflow-export";
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        if (args.size() < 3) {
+            System.err.println(USAGE);
+            exit(1);
+            return;
+        }
+        Path projectDir = Paths.get(args.get(1)).toAbsolutePath();
+        Path output = Paths.get(args.get(2)).toAbsolutePath();
+        boolean snapshot = args.size() > 3
+                ? SNAPSHOT.equalsIgnoreCase(args.get(3))
+                : output.getFileName().toString().endsWith("." + GraphSnapshot.EXTENSION);
+        CodeflowExporter.Format format = snapshot ? null : args.size() > 3
+                ? CodeflowExporter.Format.of(args.get(3))
+                : CodeflowExporter.Format.ofFileName(output.getFileName().toString());
+        if (format == null && !snapshot) {
+            System.err.println(USAGE);
+            exit(1);
+            return;
+        }
+        ApplicationManager.getApplication().executeOnPooledThread(() -> exit(export(projectDir, output, format)));
+    }
+
+    /**
+     * @param format the format to write, {@code null} for a {@link GraphSnapshot}
+     */
+    private static int export(Path projectDir, Path output, CodeflowExporter.Format format) {
+        Project project = ProjectUtil.openOrImport(projectDir, null, false);
+        if (project == null) {
+            System.err.println("Could not open project " + projectDir);
+            return 1;
+        }
+        try {
+            ProgressIndicator indicator = new ProgressIndicatorBase() {
+                @Override
+                public void setText(String text) {
+                    if (text != null && !Objects.equals(text, getText())) {
+                        System.out.println(text);
+                    }
+                    super.setText(text);
+                }
+            };
+            CodeflowAnalysis analysis = new CodeflowAnalysis(project, indicator);
+            CachedGraph graph = ProgressManager.getInstance().runProcess(() -> CodeflowTask.analyse(project, analysis, indicator), indicator);
+            Path parent = output.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (format == null) {
+                GraphSnapshot.write(graph.getGraph(), graph.getLayout(), GraphSnapshot.baseUrl(project), output);
+            } else {
+                try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    CodeflowExporter.export(graph.getGraph(), graph.getLayout(), format, out);
+                }
+            }
+            System.out.println("Wrote " + graph.getGraph().size() + " classes and " + graph.getGraph().edgeCount()
+                    + " references to " + output);
+            return 0;
+        } catch (Exception e) {
+            LOG.error("Codeflow export failed", e);
+            System.err.println("Codeflow export failed: " + e);
+            return 1;
+        } finally {
+            ApplicationManager.getApplication().invokeAndWait(() -> ProjectManager.getInstance().closeAndDispose(project));
+        }
+    }
+
+    private static void exit(int exitCode) {
+        ApplicationManagerEx.getApplicationEx().exit(ApplicationEx.FORCE_EXIT | ApplicationEx.EXIT_CONFIRMED, exitCode);
+    }
+}
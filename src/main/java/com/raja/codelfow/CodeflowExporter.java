@@ -0,0 +1,194 @@
+package com.raja.codelfow;
+
+import com.google.gson.stream.JsonWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes a {@link CodeflowGraph} as DOT, GraphML or JSON. Nodes and edges are streamed straight from the graph's
+ * arrays to the writer, nothing but the current element is held in memory. Every class is written, filtering test
+ * or configuration classes is left to the consumer through the {@code flags} attribute.
+ */
+public class CodeflowExporter {
+
+    public enum Format {
+        DOT, GRAPHML, JSON;
+
+        /**
+         * @return the format named {@code name} in any case, or {@code null} if there is none
+         */
+        public static Format of(String name) {
+            return Arrays.stream(values())
+                    .filter(format -> format.name().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        /**
+         * @return the format matching the extension of {@code fileName}, or {@code null} if there is none
+         */
+        public static Format ofFileName(String fileName) {
+            String lowerCase = fileName.toLowerCase(Locale.ROOT);
+            if (lowerCase.endsWith(".dot") || lowerCase.endsWith(".gv")) {
+                return DOT;
+            }
+            if (lowerCase.endsWith(".graphml")) {
+                return GRAPHML;
+            }
+            if (lowerCase.endsWith(".json")) {
+                return JSON;
+            }
+            return null;
+        }
+    }
+
+    private CodeflowExporter() {
+    }
+
+    /**
+     * @param layout the positions to write along with the classes, may be {@code null}
+     */
+    public static void export(CodeflowGraph graph, GraphLayout layout, Format format, Writer out) throws IOException {
+        switch (format) {
+            case DOT -> writeDot(graph, layout, out);
+            case GRAPHML -> writeGraphml(graph, layout, out);
+            case JSON -> writeJson(graph, layout, out);
+        }
+        out.flush();
+    }
+
+    private static void writeDot(CodeflowGraph graph, GraphLayout layout, Writer out) throws IOException {
+        out.write("digraph codeflow {\n");
+        out.write("  rankdir=LR;\n");
+        for (int id = 0; id < graph.size(); id++) {
+            out.write("  n" + id + " [label=" + dotString(graph.name(id))
+                    + ", tooltip=" + dotString(graph.qualifiedName(id))
+                    + ", class=" + dotString(String.join(" ", NodeFlags.names(graph.flags(id)))));
+            if (layout != null && layout.isPlaced(id)) {
+                out.write(", pos=\"" + layout.x(id) + "," + layout.y(id) + "\"");
+            }
+            out.write("];\n");
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            for (int from : graph.referencedFrom(id)) {
+                out.write("  n" + from + " -> n" + id + (graph.inheritsFrom(from, id) ? " [style=dashed]" : "") + ";\n");
+            }
+        }
+        out.write("}\n");
+    }
+
+    private static String dotString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void writeGraphml(CodeflowGraph graph, GraphLayout layout, Writer out) throws IOException {
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(out);
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("graphml");
+            xml.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+            key(xml, "qualifiedName", "node", "string");
+            key(xml, "name", "node", "string");
+            key(xml, "file", "node", "string");
+            key(xml, "flags", "node", "string");
+            key(xml, "x", "node", "float");
+            key(xml, "y", "node", "float");
+            key(xml, "inheritance", "edge", "boolean");
+            xml.writeStartElement("graph");
+            xml.writeAttribute("id", "codeflow");
+            xml.writeAttribute("edgedefault", "directed");
+            for (int id = 0; id < graph.size(); id++) {
+                xml.writeStartElement("node");
+                xml.writeAttribute("id", "n" + id);
+                data(xml, "qualifiedName", graph.qualifiedName(id));
+                data(xml, "name", graph.name(id));
+                if (graph.fileUrl(id) != null) {
+                    data(xml, "file", graph.fileUrl(id));
+                }
+                data(xml, "flags", String.join(" ", NodeFlags.names(graph.flags(id))));
+                if (layout != null && layout.isPlaced(id)) {
+                    data(xml, "x", String.valueOf(layout.x(id)));
+                    data(xml, "y", String.valueOf(layout.y(id)));
+                }
+                xml.writeEndElement();
+            }
+            for (int id = 0; id < graph.size(); id++) {
+                for (int from : graph.referencedFrom(id)) {
+                    xml.writeStartElement("edge");
+                    xml.writeAttribute("source", "n" + from);
+                    xml.writeAttribute("target", "n" + id);
+                    if (graph.inheritsFrom(from, id)) {
+                        data(xml, "inheritance", "true");
+                    }
+                    xml.writeEndElement();
+                }
+            }
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void key(XMLStreamWriter xml, String name, String domain, String type) throws XMLStreamException {
+        xml.writeEmptyElement("key");
+        xml.writeAttribute("id", name);
+        xml.writeAttribute("for", domain);
+        xml.writeAttribute("attr.name", name);
+        xml.writeAttribute("attr.type", type);
+    }
+
+    private static void data(XMLStreamWriter xml, String key, String value) throws XMLStreamException {
+        xml.writeStartElement("data");
+        xml.writeAttribute("key", key);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    private static void writeJson(CodeflowGraph graph, GraphLayout layout, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("nodes").beginArray();
+        for (int id = 0; id < graph.size(); id++) {
+            json.beginObject();
+            json.name("id").value(id);
+            json.name("qualifiedName").value(graph.qualifiedName(id));
+            json.name("name").value(graph.name(id));
+            json.name("file").value(graph.fileUrl(id));
+            json.name("flags").beginArray();
+            for (String flag : NodeFlags.names(graph.flags(id))) {
+                json.value(flag);
+            }
+            json.endArray();
+            if (layout != null && layout.isPlaced(id)) {
+                json.name("x").value(layout.x(id));
+                json.name("y").value(layout.y(id));
+            }
+            json.endObject();
+        }
+        json.endArray();
+        json.name("edges").beginArray();
+        for (int id = 0; id < graph.size(); id++) {
+            for (int from : graph.referencedFrom(id)) {
+                json.beginObject();
+                json.name("from").value(from);
+                json.name("to").value(id);
+                if (graph.inheritsFrom(from, id)) {
+                    json.name("inheritance").value(true);
+                }
+                json.endObject();
+            }
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+}
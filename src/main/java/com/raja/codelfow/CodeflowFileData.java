@@ -0,0 +1,148 @@
+package com.raja.codelfow;
+
+import com.intellij.util.io.DataExternalizer;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What {@link CodeflowIndex} records for a single Java file. Type and annotation names are stored as written in
+ * the source, {@link #candidates(String)} lists the qualified names they may refer to.
+ */
+@Getter
+public class CodeflowFileData {
+
+    private final String packageName;
+    private final List<String> imports;
+    private final List<String> onDemandImports;
+    private final List<IndexedClass> classes;
+
+    public CodeflowFileData(String packageName, List<String> imports, List<String> onDemandImports, List<IndexedClass> classes) {
+        this.packageName = packageName;
+        this.imports = imports;
+        this.onDemandImports = onDemandImports;
+        this.classes = classes;
+    }
+
+    @Getter
+    public static class IndexedClass {
+        private final String name;
+        private final String qualifiedName;
+        private final boolean isInterface;
+        private final boolean annotationType;
+        private final List<String> annotations;
+        private final List<String> supers;
+        private final List<String> beanTypes;
+        private final List<String> injectedTypes;
+        private final List<String> inputChannelAnnotations;
+
+        public IndexedClass(String name,
+                            String qualifiedName,
+                            boolean isInterface,
+                            boolean annotationType,
+                            List<String> annotations,
+                            List<String> supers,
+                            List<String> beanTypes,
+                            List<String> injectedTypes,
+                            List<String> inputChannelAnnotations) {
+            this.name = name;
+            this.qualifiedName = qualifiedName;
+            this.isInterface = isInterface;
+            this.annotationType = annotationType;
+            this.annotations = annotations;
+            this.supers = supers;
+            this.beanTypes = beanTypes;
+            this.injectedTypes = injectedTypes;
+            this.inputChannelAnnotations = inputChannelAnnotations;
+        }
+    }
+
+    /**
+     * @return the qualified names {@code name}, as written in this file, may refer to, most specific first
+     */
+    public List<String> candidates(String name) {
+        List<String> candidates = new ArrayList<>();
+        int dot = name.indexOf('.');
+        String head = dot < 0 ? name : name.substring(0, dot);
+        String tail = dot < 0 ? "" : name.substring(dot);
+        if (dot >= 0) {
+            candidates.add(name);
+        }
+        imports.stream()
+                .filter(imported -> imported.equals(head) || imported.endsWith("." + head))
+                .forEach(imported -> candidates.add(imported + tail));
+        classes.stream()
+                .filter(indexedClass -> indexedClass.getQualifiedName() != null)
+                .forEach(indexedClass -> candidates.add(indexedClass.getQualifiedName() + "." + name));
+        candidates.add(packageName.isEmpty() ? name : packageName + "." + name);
+        onDemandImports.forEach(imported -> candidates.add(imported + "." + name));
+        candidates.add("java.lang." + name);
+        return candidates;
+    }
+
+    public static class Externalizer implements DataExternalizer<CodeflowFileData> {
+
+        @Override
+        public void save(@NotNull DataOutput out, CodeflowFileData value) throws IOException {
+            out.writeUTF(value.getPackageName());
+            writeList(out, value.getImports());
+            writeList(out, value.getOnDemandImports());
+            out.writeInt(value.getClasses().size());
+            for (IndexedClass indexedClass : value.getClasses()) {
+                out.writeUTF(indexedClass.getName());
+                out.writeUTF(indexedClass.getQualifiedName() == null ? "" : indexedClass.getQualifiedName());
+                out.writeBoolean(indexedClass.isInterface());
+                out.writeBoolean(indexedClass.isAnnotationType());
+                writeList(out, indexedClass.getAnnotations());
+                writeList(out, indexedClass.getSupers());
+                writeList(out, indexedClass.getBeanTypes());
+                writeList(out, indexedClass.getInjectedTypes());
+                writeList(out, indexedClass.getInputChannelAnnotations());
+            }
+        }
+
+        @Override
+        public CodeflowFileData read(@NotNull DataInput in) throws IOException {
+            String packageName = in.readUTF();
+            List<String> imports = readList(in);
+            List<String> onDemandImports = readList(in);
+            int classCount = in.readInt();
+            List<IndexedClass> classes = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                String name = in.readUTF();
+                String qualifiedName = in.readUTF();
+                classes.add(new IndexedClass(name,
+                        qualifiedName.isEmpty() ? null : qualifiedName,
+                        in.readBoolean(),
+                        in.readBoolean(),
+                        readList(in),
+                        readList(in),
+                        readList(in),
+                        readList(in),
+                        readList(in)));
+            }
+            return new CodeflowFileData(packageName, imports, onDemandImports, classes);
+        }
+
+        private static void writeList(DataOutput out, List<String> values) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+
+        private static List<String> readList(DataInput in) throws IOException {
+            int size = in.readInt();
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(in.readUTF());
+            }
+            return values;
+        }
+    }
+}
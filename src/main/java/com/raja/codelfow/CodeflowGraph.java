@@ -0,0 +1,281 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable codeflow graph. Nodes are the ints {@code 0..size()-1}, their edges are stored as compressed sparse
+ * rows: the neighbours of node {@code n} are {@code edges[offsets[n]..offsets[n+1]]}, sorted ascending.
+ * An edge {@code from -> to} means class {@code from} references class {@code to}.
+ */
+public class CodeflowGraph {
+
+    private final String[] qualifiedNames;
+    private final String[] names;
+    private final String[] fileUrls;
+    private final IntBuffer flags;
+    private final Adjacency referencedFrom;
+    private final Adjacency inheritsFrom;
+    private volatile Adjacency references;
+    private volatile Object2IntOpenHashMap<String> ids;
+
+    CodeflowGraph(String[] qualifiedNames, String[] names, String[] fileUrls, int[] flags, Adjacency referencedFrom, Adjacency inheritsFrom) {
+        this(qualifiedNames, names, fileUrls, IntBuffer.wrap(flags), referencedFrom, inheritsFrom);
+    }
+
+    /**
+     * @param flags the flags of every node, only read with absolute gets so it may be a view of a mapped file
+     */
+    CodeflowGraph(String[] qualifiedNames, String[] names, String[] fileUrls, IntBuffer flags, Adjacency referencedFrom, Adjacency inheritsFrom) {
+        this.qualifiedNames = qualifiedNames;
+        this.names = names;
+        this.fileUrls = fileUrls;
+        this.flags = flags;
+        this.referencedFrom = referencedFrom;
+        this.inheritsFrom = inheritsFrom;
+    }
+
+    public int size() {
+        return qualifiedNames.length;
+    }
+
+    public int edgeCount() {
+        return referencedFrom.edgeCount();
+    }
+
+    /**
+     * @return the id of the class with {@code qualifiedName}, or {@code -1} if it is not in the graph
+     */
+    public int id(String qualifiedName) {
+        return ids().getInt(qualifiedName);
+    }
+
+    public String qualifiedName(int id) {
+        return qualifiedNames[id];
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public String fileUrl(int id) {
+        return fileUrls[id];
+    }
+
+    public int flags(int id) {
+        return flags.get(id);
+    }
+
+    public boolean has(int id, int flag) {
+        return NodeFlags.has(flags.get(id), flag);
+    }
+
+    /**
+     * @return the classes referencing {@code id}, ascending
+     */
+    public int[] referencedFrom(int id) {
+        return referencedFrom.toArray(id);
+    }
+
+    /**
+     * Calls {@code consumer} with every class referencing {@code id}.
+     */
+    public void forEachReferencedFrom(int id, IntConsumer consumer) {
+        referencedFrom.forEach(id, consumer);
+    }
+
+    /**
+     * Calls {@code consumer} with every class {@code id} references.
+     */
+    public void forEachReference(int id, IntConsumer consumer) {
+        references().forEach(id, consumer);
+    }
+
+    public void forEachInheritsFrom(int id, IntConsumer consumer) {
+        inheritsFrom.forEach(id, consumer);
+    }
+
+    /**
+     * @return whether {@code from} references {@code to}
+     */
+    public boolean references(int from, int to) {
+        return referencedFrom.contains(to, from);
+    }
+
+    public boolean inheritsFrom(int child, int parent) {
+        return inheritsFrom.contains(child, parent);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size());
+        for (int i = 0; i < size(); i++) {
+            out.writeUTF(qualifiedNames[i]);
+            out.writeUTF(names[i]);
+            out.writeUTF(fileUrls[i] == null ? "" : fileUrls[i]);
+            out.writeInt(flags.get(i));
+        }
+        referencedFrom.write(out);
+        inheritsFrom.write(out);
+    }
+
+    /**
+     * The id lookup and the references by referencing class are only built when first used, a graph which is just
+     * drawn never needs them.
+     */
+    private Object2IntOpenHashMap<String> ids() {
+        Object2IntOpenHashMap<String> ids = this.ids;
+        if (ids == null) {
+            ids = new Object2IntOpenHashMap<>(qualifiedNames.length);
+            ids.defaultReturnValue(-1);
+            for (int i = 0; i < qualifiedNames.length; i++) {
+                ids.put(qualifiedNames[i], i);
+            }
+            this.ids = ids;
+        }
+        return ids;
+    }
+
+    private Adjacency references() {
+        Adjacency references = this.references;
+        if (references == null) {
+            references = referencedFrom.transpose();
+            this.references = references;
+        }
+        return references;
+    }
+
+    public static CodeflowGraph read(DataInput in) throws IOException {
+        int size = in.readInt();
+        String[] qualifiedNames = new String[size];
+        String[] names = new String[size];
+        String[] fileUrls = new String[size];
+        int[] flags = new int[size];
+        for (int i = 0; i < size; i++) {
+            qualifiedNames[i] = in.readUTF();
+            names[i] = in.readUTF();
+            String fileUrl = in.readUTF();
+            fileUrls[i] = fileUrl.isEmpty() ? null : fileUrl;
+            flags[i] = in.readInt();
+        }
+        return new CodeflowGraph(qualifiedNames, names, fileUrls, flags, Adjacency.read(in), Adjacency.read(in));
+    }
+
+    /**
+     * Compressed sparse rows. The rows are only read with absolute gets, so they may be views of a mapped file.
+     */
+    static class Adjacency {
+        private final IntBuffer offsets;
+        private final IntBuffer edges;
+
+        Adjacency(int[] offsets, int[] edges) {
+            this(IntBuffer.wrap(offsets), IntBuffer.wrap(edges));
+        }
+
+        Adjacency(IntBuffer offsets, IntBuffer edges) {
+            this.offsets = offsets;
+            this.edges = edges;
+        }
+
+        static Adjacency of(List<IntOpenHashSet> sets) {
+            int[] offsets = new int[sets.size() + 1];
+            for (int i = 0; i < sets.size(); i++) {
+                IntOpenHashSet set = sets.get(i);
+                offsets[i + 1] = offsets[i] + (set == null ? 0 : set.size());
+            }
+            int[] edges = new int[offsets[sets.size()]];
+            for (int i = 0; i < sets.size(); i++) {
+                IntOpenHashSet set = sets.get(i);
+                if (set != null) {
+                    int[] neighbours = set.toIntArray();
+                    Arrays.sort(neighbours);
+                    System.arraycopy(neighbours, 0, edges, offsets[i], neighbours.length);
+                }
+            }
+            return new Adjacency(offsets, edges);
+        }
+
+        int edgeCount() {
+            return edges.limit();
+        }
+
+        Adjacency transpose() {
+            int size = offsets.limit() - 1;
+            int[] transposedOffsets = new int[size + 1];
+            for (int i = 0; i < edges.limit(); i++) {
+                transposedOffsets[edges.get(i) + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                transposedOffsets[i + 1] += transposedOffsets[i];
+            }
+            int[] next = Arrays.copyOf(transposedOffsets, size);
+            int[] transposedEdges = new int[edges.limit()];
+            for (int node = 0; node < size; node++) {
+                for (int i = offsets.get(node); i < offsets.get(node + 1); i++) {
+                    transposedEdges[next[edges.get(i)]++] = node;
+                }
+            }
+            return new Adjacency(transposedOffsets, transposedEdges);
+        }
+
+        int[] toArray(int node) {
+            int from = offsets.get(node);
+            int[] neighbours = new int[offsets.get(node + 1) - from];
+            edges.get(from, neighbours);
+            return neighbours;
+        }
+
+        void forEach(int node, IntConsumer consumer) {
+            for (int i = offsets.get(node); i < offsets.get(node + 1); i++) {
+                consumer.accept(edges.get(i));
+            }
+        }
+
+        boolean contains(int node, int neighbour) {
+            int low = offsets.get(node);
+            int high = offsets.get(node + 1) - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int edge = edges.get(middle);
+                if (edge < neighbour) {
+                    low = middle + 1;
+                } else if (edge > neighbour) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(offsets.limit());
+            for (int i = 0; i < offsets.limit(); i++) {
+                out.writeInt(offsets.get(i));
+            }
+            out.writeInt(edges.limit());
+            for (int i = 0; i < edges.limit(); i++) {
+                out.writeInt(edges.get(i));
+            }
+        }
+
+        static Adjacency read(DataInput in) throws IOException {
+            int[] offsets = new int[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readInt();
+            }
+            int[] edges = new int[in.readInt()];
+            for (int i = 0; i < edges.length; i++) {
+                edges[i] = in.readInt();
+            }
+            return new Adjacency(offsets, edges);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.raja.codelfow;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Records per Java file the stereotype annotations and supertypes of each class, the return types of its
+ * {@code @Bean} methods and the types it gets injected through fields, constructors and {@code @Bean} method
+ * parameters. Nothing is resolved while indexing, see {@link CodeflowFileData#candidates(String)}.
+ */
+public class CodeflowIndex extends SingleEntryFileBasedIndexExtension<CodeflowFileData> {
+
+    public static final ID<Integer, CodeflowFileData> NAME = ID.create("com.raja.codelfow.CodeflowIndex");
+
+    private static final Set<String> INJECTION_ANNOTATIONS = Set.of("Autowired", "Inject", "Resource");
+    private static final Set<String> LOMBOK_CONSTRUCTORS = Set.of("RequiredArgsConstructor", "AllArgsConstructor");
+
+    @Override
+    public @NotNull ID<Integer, CodeflowFileData> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull SingleEntryIndexer<CodeflowFileData> getIndexer() {
+        return new SingleEntryIndexer<>(false) {
+            @Override
+            protected CodeflowFileData computeValue(@NotNull FileContent inputData) {
+                PsiFile psiFile = inputData.getPsiFile();
+                if (!(psiFile instanceof PsiJavaFile)) {
+                    return null;
+                }
+                return index((PsiJavaFile) psiFile);
+            }
+        };
+    }
+
+    @Override
+    public @NotNull DataExternalizer<CodeflowFileData> getValueExternalizer() {
+        return new CodeflowFileData.Externalizer();
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    private static CodeflowFileData index(PsiJavaFile file) {
+        List<String> imports = new ArrayList<>();
+        List<String> onDemandImports = new ArrayList<>();
+        PsiImportList importList = file.getImportList();
+        if (importList != null) {
+            for (PsiImportStatement importStatement : importList.getImportStatements()) {
+                String qualifiedName = importStatement.getQualifiedName();
+                if (qualifiedName == null) {
+                    continue;
+                }
+                if (importStatement.isOnDemand()) {
+                    onDemandImports.add(qualifiedName);
+                } else {
+                    imports.add(qualifiedName);
+                }
+            }
+        }
+        List<CodeflowFileData.IndexedClass> classes = new ArrayList<>();
+        Arrays.stream(file.getClasses()).forEach(psiClass -> indexClass(psiClass, classes));
+        return new CodeflowFileData(file.getPackageName(), imports, onDemandImports, classes);
+    }
+
+    private static void indexClass(PsiClass psiClass, List<CodeflowFileData.IndexedClass> classes) {
+        if (psiClass.getName() == null) {
+            return;
+        }
+        List<String> supers = new ArrayList<>();
+        addReferenceNames(psiClass.getExtendsList(), supers);
+        addReferenceNames(psiClass.getImplementsList(), supers);
+
+        List<String> beanTypes = new ArrayList<>();
+        List<String> injectedTypes = new ArrayList<>();
+        List<String> inputChannelAnnotations = new ArrayList<>();
+        // final fields assigned in a constructor are injected through its parameters, which are recorded below
+        boolean lombokConstructor = annotationNames(psiClass).stream().map(CodeflowIndex::shortName)
+                .anyMatch(LOMBOK_CONSTRUCTORS::contains);
+        for (PsiField field : psiClass.getFields()) {
+            if (field.hasModifierProperty(PsiModifier.STATIC)) {
+                continue;
+            }
+            boolean injected = lombokConstructor && field.hasModifierProperty(PsiModifier.FINAL) && !field.hasInitializer() ||
+                    annotationNames(field).stream().map(CodeflowIndex::shortName).anyMatch(INJECTION_ANNOTATIONS::contains);
+            if (injected) {
+                addTypeNames(field.getTypeElement(), injectedTypes);
+            }
+        }
+        for (PsiMethod method : psiClass.getMethods()) {
+            boolean bean = annotationNames(method).stream().map(CodeflowIndex::shortName).anyMatch("Bean"::equals);
+            if (method.isConstructor() || bean) {
+                Arrays.stream(method.getParameterList().getParameters())
+                        .forEach(parameter -> addTypeNames(parameter.getTypeElement(), injectedTypes));
+            }
+            if (bean && method.getReturnTypeElement() != null) {
+                PsiJavaCodeReferenceElement returnType = method.getReturnTypeElement().getInnermostComponentReferenceElement();
+                if (returnType != null) {
+                    beanTypes.add(referenceName(returnType));
+                }
+            }
+            Arrays.stream(method.getModifierList().getAnnotations())
+                    .filter(annotation -> annotation.findDeclaredAttributeValue("inputChannel") != null)
+                    .map(annotation -> annotation.getNameReferenceElement())
+                    .filter(Objects::nonNull)
+                    .forEach(reference -> inputChannelAnnotations.add(referenceName(reference)));
+        }
+
+        classes.add(new CodeflowFileData.IndexedClass(psiClass.getName(),
+                psiClass.getQualifiedName(),
+                psiClass.isInterface(),
+                psiClass.isAnnotationType(),
+                annotationNames(psiClass),
+                supers,
+                beanTypes,
+                injectedTypes,
+                inputChannelAnnotations));
+        Arrays.stream(psiClass.getInnerClasses()).forEach(innerClass -> indexClass(innerClass, classes));
+    }
+
+    private static List<String> annotationNames(PsiModifierListOwner owner) {
+        PsiModifierList modifierList = owner.getModifierList();
+        if (modifierList == null) {
+            return List.of();
+        }
+        return Arrays.stream(modifierList.getAnnotations())
+                .map(PsiAnnotation::getNameReferenceElement)
+                .filter(Objects::nonNull)
+                .map(CodeflowIndex::referenceName)
+                .toList();
+    }
+
+    private static void addReferenceNames(PsiReferenceList referenceList, List<String> names) {
+        if (referenceList != null) {
+            Arrays.stream(referenceList.getReferenceElements())
+                    .forEach(reference -> names.add(referenceName(reference)));
+        }
+    }
+
+    private static void addTypeNames(PsiTypeElement typeElement, List<String> names) {
+        if (typeElement != null) {
+            PsiTreeUtil.findChildrenOfType(typeElement, PsiJavaCodeReferenceElement.class)
+                    .forEach(reference -> names.add(referenceName(reference)));
+        }
+    }
+
+    private static String referenceName(PsiJavaCodeReferenceElement reference) {
+        String text = reference.getText();
+        int typeArguments = text.indexOf('<');
+        if (typeArguments >= 0) {
+            text = text.substring(0, typeArguments);
+        }
+        return text.replaceAll("\\s", "");
+    }
+
+    static String shortName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
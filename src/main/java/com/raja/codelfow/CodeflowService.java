@@ -0,0 +1,98 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of the codeflow analysis running for a project. A new request joins the running analysis when
+ * nothing changed since it started and supersedes it otherwise.
+ */
+@Service
+public final class CodeflowService implements Disposable {
+
+    private final Project project;
+    private CodeflowTask running;
+    /**
+     * The graph the last draw of the whole project or of modules showed, {@code null} before the first one.
+     */
+    private volatile CachedGraph lastDrawn;
+
+    public CodeflowService(Project project) {
+        this.project = project;
+    }
+
+    public static CodeflowService getInstance(Project project) {
+        return project.getService(CodeflowService.class);
+    }
+
+    public void draw() {
+        draw(null);
+    }
+
+    /**
+     * Draws the classes of {@code modules} and the references between them only, {@code null} draws the whole
+     * project. Must be called on the EDT, the view opens right away.
+     */
+    public synchronized void draw(Collection<Module> modules) {
+        List<Module> selected = modules == null ? null : List.copyOf(modules);
+        if (running != null) {
+            if (running.isUpToDate(selected)) {
+                return;
+            }
+            running.cancel();
+        }
+        running = new CodeflowTask(project, selected, new StreamingView(project));
+        ProgressManager.getInstance().run(running);
+    }
+
+    /**
+     * Shows the neighbourhood of the class with {@code qualifiedName}, further classes are resolved as they are
+     * expanded in the viewer.
+     */
+    public void focus(String qualifiedName) {
+        ProgressManager.getInstance().run(new FocusTask(project, new FocusedExploration(project, qualifiedName)));
+    }
+
+    /**
+     * Shows the method level flow of {@code endpoint}.
+     */
+    public void trace(EndpointFlow.Endpoint endpoint) {
+        ProgressManager.getInstance().run(new EndpointTask(project, endpoint));
+    }
+
+    /**
+     * Opens the {@link GraphSnapshot} in {@code file}, needs neither the project's index nor its sources.
+     */
+    public void open(Path file) {
+        ProgressManager.getInstance().run(new SnapshotTask(project, file));
+    }
+
+    public CachedGraph getLastDrawn() {
+        return lastDrawn;
+    }
+
+    void drawn(CachedGraph graph) {
+        lastDrawn = graph;
+    }
+
+    synchronized void finished(CodeflowTask task) {
+        if (running == task) {
+            running = null;
+        }
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+    }
+}
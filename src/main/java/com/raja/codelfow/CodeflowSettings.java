@@ -0,0 +1,197 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Project level codeflow settings, stored in {@code .idea/codeflow.xml}.
+ */
+@Service
+@State(name = "CodeflowSettings", storages = @Storage("codeflow.xml"))
+public final class CodeflowSettings implements PersistentStateComponent<CodeflowSettings.State> {
+
+    public enum Engine {
+        /**
+         * Discovers components with annotation and inheritor searches and finds any reference to them with
+         * {@code ReferencesSearch}.
+         */
+        SEARCH,
+        /**
+         * Discovers components like {@link #SEARCH} but finds the references to them in a single pass over all
+         * Java files, resolving only the references named like a component.
+         */
+        SCAN,
+        /**
+         * Discovers components like {@link #SEARCH} but never loads the AST of a file: references are found with
+         * the word index and the imports in the file stubs, see {@link StubReferences}.
+         */
+        STUBS,
+        /**
+         * Builds the graph from {@link CodeflowIndex} data, only injection points count as references.
+         */
+        INDEX
+    }
+
+    public static class State {
+        /**
+         * Number of reference searches running at the same time, {@code 0} means one per available core.
+         */
+        public int parallelism = 0;
+        public Engine engine = Engine.SEARCH;
+        /**
+         * Also draw test classes, as a separate gray layer.
+         */
+        public boolean includeTests = false;
+        /**
+         * Ant style patterns of paths that contain tests without being marked as test sources.
+         */
+        public List<String> testPathPatterns = new ArrayList<>(List.of("**/src/it/**", "**/src/at/**"));
+        /**
+         * Number of hops around the class under the caret resolved before the focused view is shown.
+         */
+        public int focusDepth = 1;
+        /**
+         * Graphs with more classes than this are drawn collapsed into module and package clusters.
+         */
+        public int clusterThreshold = 300;
+        /**
+         * Draw only the references needed to show where data can flow, see {@link GraphSimplification}.
+         */
+        public boolean simplifyEdges = false;
+        /**
+         * Project specific stereotypes, classified in addition to the Spring ones.
+         */
+        public List<Stereotype> stereotypes = new ArrayList<>();
+    }
+
+    /**
+     * Classifies the classes matching every criterion set, see {@link ClassificationRules}.
+     */
+    public static class Stereotype {
+        /**
+         * Qualified name of an annotation the class is annotated or meta-annotated with.
+         */
+        public String annotation;
+        /**
+         * Qualified name of a class or interface the class inherits from.
+         */
+        public String supertype;
+        /**
+         * Regular expression the simple name of the class matches.
+         */
+        public String namePattern;
+        /**
+         * Comma separated {@link NodeFlags} names given to the matching classes, {@code component} draws them.
+         */
+        public String flags = "component";
+
+        static Stereotype annotatedWith(String annotation, String flags) {
+            Stereotype stereotype = new Stereotype();
+            stereotype.annotation = annotation;
+            stereotype.flags = flags;
+            return stereotype;
+        }
+
+        @Override
+        public String toString() {
+            return annotation + "|" + supertype + "|" + namePattern + "|" + flags;
+        }
+    }
+
+    private State state = new State();
+
+    public static CodeflowSettings getInstance(Project project) {
+        return project.getService(CodeflowSettings.class);
+    }
+
+    public int getParallelism() {
+        if (state.parallelism <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return state.parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        state.parallelism = parallelism;
+    }
+
+    public Engine getEngine() {
+        return state.engine;
+    }
+
+    public void setEngine(Engine engine) {
+        state.engine = engine;
+    }
+
+    public boolean isIncludeTests() {
+        return state.includeTests;
+    }
+
+    public void setIncludeTests(boolean includeTests) {
+        state.includeTests = includeTests;
+    }
+
+    public List<String> getTestPathPatterns() {
+        return state.testPathPatterns;
+    }
+
+    public void setTestPathPatterns(List<String> testPathPatterns) {
+        state.testPathPatterns = new ArrayList<>(testPathPatterns);
+    }
+
+    public int getFocusDepth() {
+        return Math.max(state.focusDepth, 0);
+    }
+
+    public void setFocusDepth(int focusDepth) {
+        state.focusDepth = focusDepth;
+    }
+
+    public int getClusterThreshold() {
+        return state.clusterThreshold;
+    }
+
+    public void setClusterThreshold(int clusterThreshold) {
+        state.clusterThreshold = clusterThreshold;
+    }
+
+    public boolean isSimplifyEdges() {
+        return state.simplifyEdges;
+    }
+
+    public void setSimplifyEdges(boolean simplifyEdges) {
+        state.simplifyEdges = simplifyEdges;
+    }
+
+    public List<Stereotype> getStereotypes() {
+        return state.stereotypes;
+    }
+
+    public void setStereotypes(List<Stereotype> stereotypes) {
+        state.stereotypes = new ArrayList<>(stereotypes);
+    }
+
+    /**
+     * @return a description of the settings that change which classes end up in the graph
+     */
+    public String graphKey() {
+        return getEngine() + ";" + isIncludeTests() + ";" + String.join(",", getTestPathPatterns()) + ";" + getStereotypes();
+    }
+
+    @Override
+    public @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        this.state = state;
+    }
+}
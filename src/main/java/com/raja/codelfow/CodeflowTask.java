@@ -0,0 +1,150 @@
+package com.raja.codelfow;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs {@link CodeflowAnalysis} as a non-blocking read action, so it is restarted whenever a write
+ * action (e.g. a PSI change) interrupts it, lays the result out, stores it in the {@link GraphCache} and displays it
+ * on the EDT once it completes, along with a notification summarizing its {@link AnalysisMetrics}. The view opens
+ * right away and shows the graph as it is discovered, see {@link StreamingView}.
+ */
+public class CodeflowTask extends Task.Backgroundable {
+
+    private final long modificationCount;
+    /**
+     * The modules to draw, {@code null} for the whole project.
+     */
+    private final List<Module> modules;
+    private volatile ProgressIndicator indicator;
+    private volatile boolean cancelled;
+    private CachedGraph graph;
+    private Clusters clusters;
+    private ReachabilityIndex reachability;
+    private AnalysisMetrics metrics;
+    /**
+     * The analysis a drawn graph follows edits with, {@code null} for a graph of the index engine.
+     */
+    private CodeflowAnalysis liveAnalysis;
+    private final StreamingView view;
+
+    /**
+     * @param view the view to stream the graph into, closed if the task fails or is cancelled
+     */
+    CodeflowTask(@NotNull Project project, List<Module> modules, StreamingView view) {
+        super(project, "Drawing codeflow", true);
+        this.modules = modules;
+        this.view = view;
+        this.modificationCount = PsiModificationTracker.getInstance(project).getModificationCount();
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        this.indicator = indicator;
+        if (cancelled) {
+            indicator.cancel();
+        }
+        ProgressManager.checkCanceled();
+
+        Project project = getProject();
+        CodeflowAnalysis analysis = new CodeflowAnalysis(project, indicator, modules);
+        analysis.streamTo(view::publish);
+        CachedGraph result;
+        try {
+            result = analyse(project, analysis, indicator);
+        } finally {
+            analysis.streamTo(null);
+        }
+        graph = result;
+        metrics = analysis.getMetrics();
+        if (result.getGraph().size() > CodeflowSettings.getInstance(project).getClusterThreshold()) {
+            clusters = ReadAction.nonBlocking(() -> Clusters.of(result.getGraph(), project))
+                    .wrapProgress(indicator)
+                    .expireWith(CodeflowService.getInstance(project))
+                    .executeSynchronously();
+        } else {
+            reachability = ReachabilityIndex.of(result.getGraph());
+            if (CodeflowSettings.getInstance(project).getEngine() != CodeflowSettings.Engine.INDEX) {
+                liveAnalysis = analysis;
+            }
+        }
+    }
+
+    /**
+     * Runs the analysis in smart mode, lays the graph out, updates the {@link GraphCache} unless the analysis is
+     * {@link CodeflowAnalysis#isPartial() partial} and logs the analysis' metrics. Blocks until the analysis completed, must not be called on the EDT.
+     */
+    static CachedGraph analyse(Project project, CodeflowAnalysis analysis, ProgressIndicator indicator) {
+        GraphCache cache = GraphCache.getInstance(project);
+        cache.get();
+        CachedGraph analysed = ReadAction.nonBlocking(analysis::run)
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .expireWith(CodeflowService.getInstance(project))
+                .executeSynchronously();
+        CachedGraph result = analysed.getLayout() != null ? analysed : analysed.withLayout(LayeredLayout.of(analysed.getGraph(),
+                id -> CodeflowViewer.isVisible(analysed.getGraph(), id, project)));
+        if (CodeflowSettings.getInstance(project).getEngine() != CodeflowSettings.Engine.INDEX && !analysis.isPartial() && result != cache.get()) {
+            cache.store(result, analysis.getChangedFiles());
+        }
+        analysis.getMetrics().log();
+        return result;
+    }
+
+    @Override
+    public void onSuccess() {
+        NotificationGroupManager.getInstance().getNotificationGroup("Codeflow")
+                .createNotification("Codeflow drawn", metrics.toHtml(), NotificationType.INFORMATION)
+                .notify(getProject());
+        CodeflowService.getInstance(getProject()).drawn(graph);
+        if (clusters != null) {
+            view.finishClustered(graph.getGraph(), clusters);
+        } else {
+            view.finish(graph.getGraph(), graph.getLayout(), reachability, liveAnalysis);
+        }
+    }
+
+    @Override
+    public void onCancel() {
+        view.close();
+    }
+
+    @Override
+    public void onThrowable(@NotNull Throwable error) {
+        view.close();
+        super.onThrowable(error);
+    }
+
+    @Override
+    public void onFinished() {
+        CodeflowService.getInstance(getProject()).finished(this);
+    }
+
+    /**
+     * @return whether this task draws {@code modules} and no PSI change happened since it was started, i.e. its
+     * result is still what a new run would produce
+     */
+    boolean isUpToDate(List<Module> modules) {
+        return Objects.equals(this.modules, modules)
+                && modificationCount == PsiModificationTracker.getInstance(getProject()).getModificationCount();
+    }
+
+    void cancel() {
+        cancelled = true;
+        ProgressIndicator current = indicator;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.swing_viewer.DefaultView;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.ui.view.camera.Camera;
+
+import javax.swing.SwingUtilities;
+import java.awt.Window;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+import static org.graphstream.ui.view.util.InteractiveElement.NODE;
+import static org.graphstream.ui.view.util.InteractiveElement.SPRITE;
+
+public class CodeflowViewer {
+
+    private CodeflowViewer() {
+    }
+
+    /**
+     * Displays every class of {@code nodes}. Clicking a class opens it, alt clicking classes queries where their data
+     * ends up, see {@link FlowHighlighter}. While the view is open it follows the edits in the project, see
+     * {@link LiveGraph}.
+     *
+     * @param analysis the analysis {@code nodes} are the result of, {@code null} to draw a snapshot which does not
+     *                 follow edits
+     */
+    public static void displayNodes(CodeflowGraph nodes, GraphLayout layout, ReachabilityIndex reachability,
+                                    CodeflowAnalysis analysis, Project project) {
+        new StreamingView(project).finish(nodes, layout, reachability, analysis);
+    }
+
+    /**
+     * Alt clicking selects the class in {@code highlighter}, if there is one yet; clicking opens it.
+     */
+    static void select(Project project, FlowHighlighter highlighter, String fullName, MouseEvent e) {
+        if (e.isAltDown()) {
+            if (highlighter != null) {
+                highlighter.select(fullName);
+            }
+        } else {
+            openClass(project, fullName);
+        }
+    }
+
+    /**
+     * Displays {@code nodes} collapsed into module and package clusters. Clicking a cluster expands it, shift clicking
+     * a class or cluster collapses the cluster containing it. Labels are only drawn when zoomed in far enough.
+     */
+    public static void displayClustered(CodeflowGraph nodes, Clusters clusters, Project project) {
+        Graph graph = createGraph(true);
+        ClusteredView view = new ClusteredView(graph, nodes, clusters, id -> isVisible(nodes, id, project),
+                CodeflowSettings.getInstance(project).isSimplifyEdges());
+        view.render();
+        display(graph, (fullName, e) -> clusterClicked(view, project, fullName, e));
+    }
+
+    /**
+     * Expands a clicked cluster, collapses the cluster containing a shift clicked class or cluster and opens a
+     * clicked class.
+     */
+    static void clusterClicked(ClusteredView view, Project project, String fullName, MouseEvent e) {
+        if (e.isShiftDown()) {
+            view.collapseParent(fullName);
+        } else if (ClusteredView.isCluster(fullName)) {
+            view.expand(fullName);
+        } else {
+            openClass(project, fullName);
+        }
+    }
+
+    /**
+     * Displays the graph of a {@link FocusedExploration}. Clicking a class which is not expanded yet, marked with a
+     * trailing {@code +}, resolves its references in the background and adds them to the open view; clicking an
+     * expanded class opens it.
+     */
+    public static void displayFocused(FocusedExploration exploration, CodeflowGraph nodes, GraphLayout layout, Project project) {
+        Graph graph = createGraph(false);
+        addNodes(graph, nodes, project, qualifiedName -> !exploration.isExpanded(qualifiedName));
+        place(graph, nodes, layout);
+        display(graph, (fullName, e) -> {
+            if (exploration.isExpanded(fullName)) {
+                openClass(project, fullName);
+                return;
+            }
+            ReadAction.nonBlocking(() -> {
+                        CodeflowGraph expanded = exploration.expand(fullName);
+                        return Pair.create(expanded, LayeredLayout.of(expanded, id -> isVisible(expanded, id, project)));
+                    })
+                    .inSmartMode(project)
+                    .expireWith(CodeflowService.getInstance(project))
+                    .finishOnUiThread(ModalityState.defaultModalityState(),
+                            expanded -> {
+                                addNodes(graph, expanded.first, project, qualifiedName -> !exploration.isExpanded(qualifiedName));
+                                place(graph, expanded.first, expanded.second);
+                            })
+                    .submit(AppExecutorUtil.getAppExecutorService());
+        });
+    }
+
+    /**
+     * @param levelOfDetail whether class labels and reference edges fade out when zoomed out, only cluster labels
+     *                      stay visible then
+     */
+    static Graph createGraph(boolean levelOfDetail) {
+        System.setProperty("org.graphstream.ui", "swing");
+        Graph graph = new MultiGraph("tutorial 1");
+        style(graph, levelOfDetail);
+        return graph;
+    }
+
+    /**
+     * Sets the stylesheet of {@code graph}, class labels are only drawn when zoomed in if {@code levelOfDetail}.
+     */
+    static void style(Graph graph, boolean levelOfDetail) {
+        String lod = levelOfDetail ? " text-visibility-mode: under-zoom; text-visibility: 0.4;" : "";
+        graph.setAttribute("ui.stylesheet", "graph { }" +
+                " node { text-alignment: at-right; text-background-mode: plain; text-background-color: #FFF9; text-size: 14;" + lod + " }" +
+                " node.gray { fill-color: #999; text-color: #999; z-index: 0; text-size: 10; }" +
+                " node.green { fill-color: #090; text-color: #090; }" +
+                " node.blue { fill-color: #009; text-color: #009; }" +
+                " node.channel { shape: diamond; size: 14px; fill-color: #C80; text-color: #960; }" +
+                " node.cycle { fill-color: #C00; text-color: #C00; }" +
+                " edge { }" +
+                " edge.gray { fill-color: #999; text-color: #999; z-index: 0; }" +
+                " edge.green { fill-color: #090; text-color: #090; }" +
+                " edge.blue { fill-color: #009; text-color: #009; }" +
+                " edge.inheritance { shape: blob; size: 3px; arrow-shape: none; }" +
+                " node.dimmed { fill-color: #DDD; text-color: #CCC; z-index: 0; }" +
+                " edge.dimmed { fill-color: #EEE; z-index: 0; }" +
+                " node.selected { fill-color: #C60; text-color: #C60; size: 14px; }" +
+                " edge.path { fill-color: #C60; size: 3px; }" +
+                " node.cluster { shape: box; size-mode: dyn-size; fill-color: #CCC; text-color: #333; text-visibility-mode: normal; }" +
+                " edge.cluster { size-mode: dyn-size; fill-color: #AAA; text-color: #666; text-size: 10; text-visibility-mode: under-zoom; text-visibility: 0.6; }"
+        );
+    }
+
+    /**
+     * Adds the classes and references of {@code nodes} which are not in {@code graph} yet and updates the labels of
+     * the others.
+     */
+    private static void addNodes(Graph graph, CodeflowGraph nodes, Project project, Predicate<String> collapsed) {
+        for (int id = 0; id < nodes.size(); id++) {
+            if (!isVisible(nodes, id, project)) {
+                continue;
+            }
+            org.graphstream.graph.Node addedNode = graph.getNode(nodes.qualifiedName(id));
+            if (addedNode == null) {
+                addedNode = graph.addNode(nodes.qualifiedName(id));
+            }
+            styleNode(addedNode, nodes, id, collapsed.test(nodes.qualifiedName(id)));
+        }
+        for (int id = 0; id < nodes.size(); id++) {
+            int node = id;
+            nodes.forEachReferencedFrom(node, referencedFrom -> {
+                if (graph.getNode(nodes.qualifiedName(referencedFrom)) == null) {
+                    return;
+                }
+                if (graph.getNode(nodes.qualifiedName(node)) == null) {
+                    return;
+                }
+                String edgeId = nodes.qualifiedName(referencedFrom) + "->" + nodes.qualifiedName(node);
+                if (graph.getEdge(edgeId) != null) {
+                    return;
+                }
+                Edge addedEdge = graph.addEdge(edgeId,
+                        nodes.qualifiedName(referencedFrom),
+                        nodes.qualifiedName(node),
+                        true);
+                Object[] classes = edgeClasses(nodes, referencedFrom, node);
+                if (classes.length > 0) {
+                    addedEdge.setAttribute("ui.class", classes);
+                }
+            });
+        }
+    }
+
+    /**
+     * Turns {@code graph} into a drawing of {@code nodes} in place: removes the classes and references which are gone,
+     * restyles the others and adds the new ones next to the classes they are connected to. The classes which were
+     * drawn already keep their position.
+     */
+    static void update(Graph graph, CodeflowGraph nodes, Project project) {
+        graph.nodes()
+                .filter(node -> {
+                    int id = nodes.id(node.getId());
+                    return id < 0 || !isVisible(nodes, id, project);
+                })
+                .map(Element::getId)
+                .toList()
+                .forEach(graph::removeNode);
+        graph.edges()
+                .filter(edge -> !nodes.references(nodes.id(edge.getSourceNode().getId()), nodes.id(edge.getTargetNode().getId())))
+                .map(Element::getId)
+                .toList()
+                .forEach(graph::removeEdge);
+        List<Integer> added = new ArrayList<>();
+        for (int id = 0; id < nodes.size(); id++) {
+            if (isVisible(nodes, id, project) && graph.getNode(nodes.qualifiedName(id)) == null) {
+                added.add(id);
+            }
+        }
+        graph.nodes().forEach(node -> node.removeAttribute("ui.class"));
+        graph.edges().forEach(edge -> {
+            Object[] classes = edgeClasses(nodes, nodes.id(edge.getSourceNode().getId()), nodes.id(edge.getTargetNode().getId()));
+            if (classes.length > 0) {
+                edge.setAttribute("ui.class", classes);
+            } else {
+                edge.removeAttribute("ui.class");
+            }
+        });
+        addNodes(graph, nodes, project, qualifiedName -> false);
+        added.forEach(id -> placeNearNeighbours(graph, nodes, id));
+    }
+
+    /**
+     * Places the node of {@code id} just below the center of the drawn classes it references or is referenced by,
+     * leaves it where it is if there are none.
+     */
+    private static void placeNearNeighbours(Graph graph, CodeflowGraph nodes, int id) {
+        double[] sum = new double[3];
+        IntConsumer addPosition = neighbour -> {
+            org.graphstream.graph.Node node = graph.getNode(nodes.qualifiedName(neighbour));
+            if (node != null && node.getAttribute("xy") instanceof Object[] xy
+                    && xy.length >= 2 && xy[0] instanceof Number x && xy[1] instanceof Number y) {
+                sum[0] += x.doubleValue();
+                sum[1] += y.doubleValue();
+                sum[2]++;
+            }
+        };
+        nodes.forEachReferencedFrom(id, addPosition);
+        nodes.forEachReference(id, addPosition);
+        if (sum[2] > 0) {
+            graph.getNode(nodes.qualifiedName(id)).setAttribute("xy", sum[0] / sum[2], sum[1] / sum[2] - 0.5);
+        }
+    }
+
+    /**
+     * Moves the nodes of {@code graph} to their position in {@code layout}.
+     */
+    static void place(Graph graph, CodeflowGraph nodes, GraphLayout layout) {
+        for (int id = 0; id < nodes.size(); id++) {
+            org.graphstream.graph.Node node = graph.getNode(nodes.qualifiedName(id));
+            if (node != null && layout.isPlaced(id)) {
+                node.setAttribute("xy", layout.x(id), layout.y(id));
+            }
+        }
+    }
+
+    /**
+     * @return the positions the nodes of {@code graph} are drawn at, by id of {@code nodes}
+     */
+    static GraphLayout layoutOf(Graph graph, CodeflowGraph nodes) {
+        float[] x = new float[nodes.size()];
+        float[] y = new float[nodes.size()];
+        Arrays.fill(x, Float.NaN);
+        Arrays.fill(y, Float.NaN);
+        for (int id = 0; id < nodes.size(); id++) {
+            org.graphstream.graph.Node node = graph.getNode(nodes.qualifiedName(id));
+            if (node != null && node.getAttribute("xy") instanceof Object[] xy
+                    && xy.length >= 2 && xy[0] instanceof Number nodeX && xy[1] instanceof Number nodeY) {
+                x[id] = nodeX.floatValue();
+                y[id] = nodeY.floatValue();
+            }
+        }
+        return new GraphLayout(x, y);
+    }
+
+    static boolean isVisible(CodeflowGraph nodes, int id, Project project) {
+        if (nodes.has(id, NodeFlags.CONFIG)) {
+            return false;
+        }
+        return !nodes.has(id, NodeFlags.TEST) || CodeflowSettings.getInstance(project).isIncludeTests();
+    }
+
+    static void styleNode(org.graphstream.graph.Node addedNode, CodeflowGraph nodes, int id, boolean collapsed) {
+        addedNode.setAttribute("ui.fullname", nodes.qualifiedName(id));
+        if (nodes.has(id, NodeFlags.TEST)) {
+            addedNode.setAttribute("ui.class", "gray");
+        }
+        if (nodes.has(id, NodeFlags.CONTROLLER) || nodes.has(id, NodeFlags.PUBSUB)) {
+            addedNode.setAttribute("ui.class", "green");
+        }
+        if (nodes.has(id, NodeFlags.REPOSITORY)) {
+            addedNode.setAttribute("ui.class", "blue");
+        }
+        if (nodes.has(id, NodeFlags.CYCLE)) {
+            addedNode.setAttribute("ui.class", "cycle");
+        }
+        if (nodes.has(id, NodeFlags.CHANNEL)) {
+            addedNode.setAttribute("ui.class", "channel");
+        }
+        String label;
+        if (nodes.has(id, NodeFlags.COMPONENT) || nodes.has(id, NodeFlags.CHANNEL)) {
+            label = nodes.name(id);
+        } else {
+            label = "[" + nodes.name(id) + "]";
+        }
+        if (nodes.has(id, NodeFlags.INTERFACE)) {
+            label = "<" + nodes.name(id) + ">";
+        }
+        if (collapsed) {
+            label += " +";
+        }
+        addedNode.setAttribute("ui.label", label);
+    }
+
+    /**
+     * @return the style classes of the edge {@code referencedFrom -> node}
+     */
+    static Object[] edgeClasses(CodeflowGraph nodes, int referencedFrom, int node) {
+        int flags = nodes.flags(referencedFrom) | nodes.flags(node);
+        List<String> classesToAdd = new ArrayList<>();
+        if (NodeFlags.has(flags, NodeFlags.CONTROLLER) || NodeFlags.has(flags, NodeFlags.PUBSUB)) {
+            classesToAdd.add("green");
+        }
+        if (NodeFlags.has(flags, NodeFlags.REPOSITORY)) {
+            classesToAdd.add("blue");
+        }
+        if (NodeFlags.has(flags, NodeFlags.TEST) || NodeFlags.has(flags, NodeFlags.CONFIG)) {
+            classesToAdd.add("gray");
+        }
+        if (nodes.inheritsFrom(referencedFrom, node)) {
+            classesToAdd.add("inheritance");
+        }
+        return classesToAdd.toArray();
+    }
+
+    private static void display(Graph graph, BiConsumer<String, MouseEvent> onClick) {
+        display(graph, onClick, () -> {
+        });
+    }
+
+    /**
+     * @param onClose called once the window of the view is closed
+     * @return the view drawing {@code graph}
+     */
+    static DefaultView display(Graph graph, BiConsumer<String, MouseEvent> onClick, Runnable onClose) {
+        Viewer display = graph.display(false);
+        display.setCloseFramePolicy(Viewer.CloseFramePolicy.CLOSE_VIEWER);
+
+        DefaultView view = (DefaultView) display.getDefaultView();
+        SwingUtilities.invokeLater(() -> {
+            Window window = SwingUtilities.getWindowAncestor(view);
+            if (window != null) {
+                window.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        onClose.run();
+                    }
+                });
+            }
+        });
+        view.addMouseWheelListener(e -> {
+            Camera camera = view.getCamera();
+            camera.setViewPercent(Math.max(0.05, camera.getViewPercent() * Math.pow(1.1, e.getWheelRotation())));
+        });
+
+        view.addListener("Mouse", new MouseListener() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                GraphicElement graphicElementAt = ((DefaultView) e.getSource()).findGraphicElementAt(EnumSet.of(NODE, SPRITE), e.getX(), e.getY());
+                if (graphicElementAt == null) {
+                    return;
+                }
+                onClick.accept((String) graphicElementAt.getAttribute("ui.fullname"), e);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+            }
+
+            @Override
+            public void mouseEntered(MouseEvent e) {
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+            }
+        });
+        return view;
+    }
+
+    /**
+     * Opens the class with {@code fullName}, or navigates to the method if it is the key of a method in an
+     * {@link EndpointFlow}.
+     */
+    private static void openClass(Project project, String fullName) {
+        if (DumbService.isDumb(project)) {
+            return;
+        }
+        int method = fullName.indexOf('#');
+        String className = method < 0 ? fullName : fullName.substring(0, method);
+        PsiClass aClass = JavaPsiFacadeImpl.getInstance(project).findClass(className, GlobalSearchScope.projectScope(project));
+        if (aClass == null) {
+            return;
+        }
+        if (method >= 0) {
+            String methodName = fullName.substring(method + 1).replaceFirst("\\(.*", "");
+            PsiMethod[] methods = aClass.findMethodsByName(methodName, false);
+            if (methods.length > 0 && methods[0].canNavigate()) {
+                methods[0].navigate(true);
+                return;
+            }
+        }
+        FileEditorManager.getInstance(project).openFile(aClass.getContainingFile().getVirtualFile(), true);
+    }
+}
@@ -0,0 +1,139 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
+import com.intellij.psi.search.searches.AnnotationTargetsSearch;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Results of the searches several discovery phases share. Each result is computed once on first use and the
+ * context itself is cached until the next PSI change, so repeated draws of an unchanged project reuse it.
+ */
+public class DiscoveryContext {
+
+    public static final String COMPONENT = "org.springframework.stereotype.Component";
+    public static final String CONTROLLER = "org.springframework.stereotype.Controller";
+    public static final String FEIGN_CLIENT = "org.springframework.cloud.openfeign.FeignClient";
+    public static final String BEAN = "org.springframework.context.annotation.Bean";
+
+    private static final Key<CachedValue<DiscoveryContext>> KEY = Key.create("codeflow.discovery.context");
+
+    private final Project project;
+    private final Map<String, List<PsiClass>> annotationClosures = new ConcurrentHashMap<>();
+    private final Map<Pair<String, GlobalSearchScope>, Set<PsiClassImpl>> annotatedClasses = new ConcurrentHashMap<>();
+    private final Map<GlobalSearchScope, Collection<PsiMethod>> beanMethods = new ConcurrentHashMap<>();
+    private final Map<GlobalSearchScope, Set<PsiClassImpl>> beanClasses = new ConcurrentHashMap<>();
+    private final AtomicInteger searchCount = new AtomicInteger();
+
+    private DiscoveryContext(Project project) {
+        this.project = project;
+    }
+
+    public static DiscoveryContext getInstance(Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, KEY,
+                () -> CachedValueProvider.Result.create(new DiscoveryContext(project), PsiModificationTracker.getInstance(project)),
+                false);
+    }
+
+    /**
+     * @return the number of searches this context ran so far; memoized results are not counted again
+     */
+    public int getSearchCount() {
+        return searchCount.get();
+    }
+
+    /**
+     * @return the annotation {@code root} and every annotation type, from sources or libraries, which is directly
+     * or indirectly meta-annotated with it; empty if {@code root} is not on the classpath
+     */
+    public List<PsiClass> annotationClosure(String root) {
+        return annotationClosures.computeIfAbsent(root, this::findAnnotationClosure);
+    }
+
+    /**
+     * @return the classes in {@code scope} annotated with {@code root} or one of its meta-annotations
+     */
+    public Set<PsiClassImpl> annotatedClasses(String root, GlobalSearchScope scope) {
+        return annotatedClasses.computeIfAbsent(Pair.create(root, scope), key -> annotationClosure(root).stream()
+                .flatMap(annotation -> {
+                    ProgressManager.checkCanceled();
+                    searchCount.incrementAndGet();
+                    return AnnotationTargetsSearch.search(annotation, scope).findAll().stream();
+                })
+                .filter(psiModifierListOwner -> psiModifierListOwner instanceof PsiClassImpl)
+                .map(psiModifierListOwner -> (PsiClassImpl) psiModifierListOwner)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * @return the {@code @Bean} methods in {@code scope}
+     */
+    public Collection<PsiMethod> beanMethods(GlobalSearchScope scope) {
+        return beanMethods.computeIfAbsent(scope, key -> {
+            PsiClass beanClass = findClass(BEAN);
+            if (beanClass == null) {
+                return emptyList();
+            }
+            searchCount.incrementAndGet();
+            return AnnotatedElementsSearch.searchPsiMethods(beanClass, scope).findAll();
+        });
+    }
+
+    /**
+     * @return the project classes returned by {@code @Bean} methods in {@code scope}
+     */
+    public Set<PsiClassImpl> beanClasses(GlobalSearchScope scope) {
+        return beanClasses.computeIfAbsent(scope, key -> beanMethods(scope).stream()
+                .map(psiMethod -> PsiUtil.resolveClassInType(psiMethod.getReturnType()))
+                .filter(psiClass -> psiClass instanceof PsiClassImpl)
+                .map(psiClass -> (PsiClassImpl) psiClass)
+                .collect(Collectors.toSet()));
+    }
+
+    private List<PsiClass> findAnnotationClosure(String root) {
+        PsiClass rootClass = findClass(root);
+        if (rootClass == null) {
+            return emptyList();
+        }
+        Set<PsiClass> closure = new LinkedHashSet<>();
+        Deque<PsiClass> queue = new ArrayDeque<>();
+        queue.addLast(rootClass);
+        while (!queue.isEmpty()) {
+            ProgressManager.checkCanceled();
+            PsiClass current = queue.removeFirst();
+            if (!closure.add(current)) {
+                continue;
+            }
+            searchCount.incrementAndGet();
+            AnnotationTargetsSearch.search(current).findAll().stream()
+                    .filter(psiModifierListOwner -> psiModifierListOwner instanceof PsiClass)
+                    .map(psiModifierListOwner -> (PsiClass) psiModifierListOwner)
+                    .filter(PsiClass::isAnnotationType)
+                    .forEach(queue::addLast);
+        }
+        return new ArrayList<>(closure);
+    }
+
+    private PsiClass findClass(String qualifiedName) {
+        return JavaPsiFacadeImpl.getInstance(project).findClass(qualifiedName, GlobalSearchScope.allScope(project));
+    }
+}
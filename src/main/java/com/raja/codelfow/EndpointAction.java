@@ -0,0 +1,69 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Draws the method level flow of an HTTP endpoint, see {@link EndpointFlow}: of the handler method under the caret,
+ * or of an endpoint picked from all endpoints of the project.
+ */
+public class EndpointAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        if (project == null) {
+            return;
+        }
+        PsiMethod methodAtCaret = methodAtCaret(e);
+        String caretKey = methodAtCaret == null ? null : EndpointFlow.methodKey(methodAtCaret);
+        ReadAction.nonBlocking(() -> EndpointFlow.getInstance(project).endpoints())
+                .inSmartMode(project)
+                .expireWith(CodeflowService.getInstance(project))
+                .finishOnUiThread(ModalityState.defaultModalityState(), endpoints -> choose(project, endpoints, caretKey))
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private static void choose(Project project, List<EndpointFlow.Endpoint> endpoints, String caretKey) {
+        EndpointFlow.Endpoint atCaret = endpoints.stream()
+                .filter(endpoint -> endpoint.key().equals(caretKey))
+                .findFirst()
+                .orElse(null);
+        if (atCaret != null) {
+            CodeflowService.getInstance(project).trace(atCaret);
+            return;
+        }
+        if (endpoints.isEmpty()) {
+            JBPopupFactory.getInstance().createMessage("No endpoints found").showCenteredInCurrentWindow(project);
+            return;
+        }
+        JBPopupFactory.getInstance().createPopupChooserBuilder(endpoints)
+                .setTitle("Draw Endpoint Flow")
+                .setNamerForFiltering(EndpointFlow.Endpoint::label)
+                .setItemChosenCallback(endpoint -> CodeflowService.getInstance(project).trace(endpoint))
+                .createPopup()
+                .showCenteredInCurrentWindow(project);
+    }
+
+    private static PsiMethod methodAtCaret(AnActionEvent e) {
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        PsiFile psiFile = e.getData(CommonDataKeys.PSI_FILE);
+        if (editor == null || psiFile == null) {
+            return null;
+        }
+        return PsiTreeUtil.getParentOfType(psiFile.findElementAt(editor.getCaretModel().getOffset()), PsiMethod.class, false);
+    }
+}
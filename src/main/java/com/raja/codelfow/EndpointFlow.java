@@ -0,0 +1,299 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
+import com.intellij.psi.search.searches.OverridingMethodsSearch;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Traces method level call paths from HTTP endpoints, the methods annotated with {@code @RequestMapping} or one of
+ * its variants like {@code @GetMapping}, down to the calls leaving the project through a Spring Data repository, a
+ * Feign client or a message publisher. Calls on an interface or abstract method continue with its implementations.
+ * The direct callees of every method are summarized once and memoized until the next PSI change, so a service
+ * method shared by many endpoints is resolved once for all of them. Must be used inside a read action.
+ */
+public class EndpointFlow {
+
+    public static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+    private static final String REPOSITORY = "org.springframework.data.repository.Repository";
+
+    private static final Key<CachedValue<EndpointFlow>> KEY = Key.create("codeflow.endpoint.flow");
+
+    /**
+     * An HTTP endpoint, e.g. {@code GET /orders/{id}}.
+     *
+     * @param key the key of the handler method in a traced graph
+     */
+    public record Endpoint(String label, String key, SmartPsiElementPointer<PsiMethod> method) {
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * A call into the project, where the flow continues with {@code method}, or out of it through a leaf, where
+     * {@code method} is {@code null}.
+     */
+    private record Call(String key, String name, String fileUrl, int flags, PsiMethod method) {
+    }
+
+    private final Project project;
+    private final GlobalSearchScope scope;
+    private final Map<PsiMethod, List<Call>> callees = new ConcurrentHashMap<>();
+    private Set<String> feignAnnotations;
+
+    private EndpointFlow(Project project) {
+        this.project = project;
+        this.scope = ProductionScope.forAnalysis(project);
+    }
+
+    public static EndpointFlow getInstance(Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, KEY,
+                () -> CachedValueProvider.Result.create(new EndpointFlow(project), PsiModificationTracker.getInstance(project)),
+                false);
+    }
+
+    /**
+     * @return the endpoints of the project, sorted by their label
+     */
+    public List<Endpoint> endpoints() {
+        List<PsiClass> mappings = DiscoveryContext.getInstance(project).annotationClosure(REQUEST_MAPPING);
+        SmartPointerManager pointers = SmartPointerManager.getInstance(project);
+        Map<String, Endpoint> endpoints = new HashMap<>();
+        mappings.forEach(mapping -> {
+            ProgressManager.checkCanceled();
+            AnnotatedElementsSearch.searchPsiMethods(mapping, scope).findAll().forEach(method -> {
+                PsiClass owner = method.getContainingClass();
+                if (owner == null || hasAnnotation(owner, feignAnnotations())) {
+                    return;
+                }
+                String key = methodKey(method);
+                endpoints.putIfAbsent(key, new Endpoint(label(method, mappings), key, pointers.createSmartPsiElementPointer(method)));
+            });
+        });
+        return endpoints.values().stream()
+                .sorted(Comparator.comparing(Endpoint::label).thenComparing(Endpoint::key))
+                .toList();
+    }
+
+    /**
+     * @return the methods reached from {@code endpoint}, with a reference from every method to each method it calls;
+     * repository, Feign client and publisher calls are leaves
+     */
+    public CodeflowGraph trace(Endpoint endpoint) {
+        GraphBuilder nodes = new GraphBuilder();
+        PsiMethod handler = endpoint.method().getElement();
+        if (handler == null) {
+            return nodes.freeze();
+        }
+        nodes.intern(endpoint.key(), endpoint.label(), CodeflowAnalysis.fileUrl(handler.getContainingClass()),
+                NodeFlags.COMPONENT | NodeFlags.CONTROLLER);
+        Deque<PsiMethod> queue = new ArrayDeque<>();
+        queue.addLast(handler);
+        while (!queue.isEmpty()) {
+            ProgressManager.checkCanceled();
+            PsiMethod caller = queue.removeFirst();
+            int from = nodes.id(methodKey(caller));
+            for (Call call : callees(caller)) {
+                int to = nodes.id(call.key());
+                if (to < 0) {
+                    to = nodes.intern(call.key(), call.name(), call.fileUrl(), call.flags());
+                    if (call.method() != null) {
+                        queue.addLast(call.method());
+                    }
+                }
+                if (to != from) {
+                    nodes.addReference(from, to);
+                }
+            }
+        }
+        return nodes.freeze();
+    }
+
+    /**
+     * @return the key of {@code method} in a traced graph, the key of its class, its name and its parameter types
+     */
+    static String methodKey(PsiMethod method) {
+        PsiClass owner = method.getContainingClass();
+        return (owner == null ? "" : CodeflowAnalysis.key(owner)) + "#" + method.getName() + "("
+                + Arrays.stream(method.getParameterList().getParameters())
+                .map(parameter -> parameter.getType().getCanonicalText())
+                .collect(Collectors.joining(",")) + ")";
+    }
+
+    private List<Call> callees(PsiMethod method) {
+        List<Call> summary = callees.get(method);
+        if (summary == null) {
+            summary = summarize(method);
+            callees.putIfAbsent(method, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * @return the distinct calls in the body of {@code method}, or its implementations if it has no body
+     */
+    private List<Call> summarize(PsiMethod method) {
+        PsiCodeBlock body = method.getBody();
+        if (body == null) {
+            return OverridingMethodsSearch.search(method, scope, true).findAll().stream()
+                    .map(implementation -> call(implementation, null))
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(Call::key))
+                    .toList();
+        }
+        Map<String, Call> calls = new LinkedHashMap<>();
+        PsiTreeUtil.<PsiExpression>findChildrenOfAnyType(body, PsiMethodCallExpression.class, PsiMethodReferenceExpression.class)
+                .forEach(expression -> {
+                    Call call;
+                    if (expression instanceof PsiMethodCallExpression methodCall) {
+                        call = call(methodCall.resolveMethod(), methodCall.getMethodExpression().getQualifierExpression());
+                    } else {
+                        PsiMethodReferenceExpression reference = (PsiMethodReferenceExpression) expression;
+                        call = call(reference.resolve() instanceof PsiMethod callee ? callee : null, reference.getQualifierExpression());
+                    }
+                    if (call != null) {
+                        calls.putIfAbsent(call.key(), call);
+                    }
+                });
+        return List.copyOf(calls.values());
+    }
+
+    /**
+     * @param qualifier the expression {@code callee} is called on, its type tells which repository or client is
+     *                  called when {@code callee} is inherited from a library interface
+     * @return the call of {@code callee}, {@code null} if it neither continues in the project nor is a leaf
+     */
+    private Call call(PsiMethod callee, PsiExpression qualifier) {
+        if (callee == null || callee.isConstructor()) {
+            return null;
+        }
+        PsiClass receiver = qualifier == null ? null : PsiUtil.resolveClassInClassTypeOnly(qualifier.getType());
+        PsiClass target = receiver != null ? receiver : callee.getContainingClass();
+        if (target == null) {
+            return null;
+        }
+        PsiClass owner = callee.getContainingClass();
+        if (InheritanceUtil.isInheritor(owner, ChannelTopology.PUBLISHER_OPERATIONS)
+                || InheritanceUtil.isInheritor(owner, ChannelTopology.MESSAGE_CHANNEL)) {
+            return leaf(target, callee, NodeFlags.REPOSITORY);
+        }
+        if (hasAnnotation(target, feignAnnotations())) {
+            return leaf(target, callee, NodeFlags.COMPONENT | NodeFlags.REPOSITORY | NodeFlags.INTERFACE);
+        }
+        if (InheritanceUtil.isInheritor(target, REPOSITORY)) {
+            return leaf(target, callee, NodeFlags.COMPONENT | NodeFlags.REPOSITORY);
+        }
+        if (owner == null || !isInScope(callee)) {
+            return null;
+        }
+        int flags = NodeFlags.COMPONENT | (owner.isInterface() ? NodeFlags.INTERFACE : 0);
+        return new Call(methodKey(callee), owner.getName() + "." + callee.getName(), CodeflowAnalysis.fileUrl(owner), flags, callee);
+    }
+
+    private static Call leaf(PsiClass target, PsiMethod callee, int flags) {
+        return new Call(CodeflowAnalysis.key(target) + "#" + callee.getName(),
+                target.getName() + "." + callee.getName(),
+                CodeflowAnalysis.fileUrl(target),
+                flags,
+                null);
+    }
+
+    /**
+     * @return e.g. {@code GET /orders/{id}}, the request method, the path of the class mapping joined with the path
+     * of the method mapping
+     */
+    private static String label(PsiMethod method, List<PsiClass> mappings) {
+        PsiAnnotation mapping = Arrays.stream(method.getAnnotations())
+                .filter(annotation -> mappings.contains(annotation.resolveAnnotationType()))
+                .findFirst()
+                .orElse(null);
+        PsiClass owner = method.getContainingClass();
+        String prefix = owner == null ? "" : path(owner.getAnnotation(REQUEST_MAPPING));
+        String path = ("/" + prefix + "/" + path(mapping)).replaceAll("/+", "/");
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return requestMethod(mapping) + " " + path;
+    }
+
+    private static String requestMethod(PsiAnnotation mapping) {
+        PsiClass type = mapping == null ? null : mapping.resolveAnnotationType();
+        if (type == null) {
+            return "*";
+        }
+        if (!REQUEST_MAPPING.equals(type.getQualifiedName())) {
+            return type.getName() == null ? "*" : type.getName().replace("Mapping", "").toUpperCase(Locale.ROOT);
+        }
+        PsiAnnotationMemberValue value = mapping.findDeclaredAttributeValue("method");
+        PsiAnnotationMemberValue[] values = value instanceof PsiArrayInitializerMemberValue array
+                ? array.getInitializers()
+                : value == null ? new PsiAnnotationMemberValue[0] : new PsiAnnotationMemberValue[]{value};
+        String methods = Arrays.stream(values)
+                .filter(element -> element instanceof PsiReferenceExpression)
+                .map(element -> ((PsiReferenceExpression) element).getReferenceName())
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(","));
+        return methods.isEmpty() ? "*" : methods;
+    }
+
+    /**
+     * @return the first path of {@code mapping}, empty if it has none
+     */
+    private static String path(PsiAnnotation mapping) {
+        if (mapping == null) {
+            return "";
+        }
+        PsiAnnotationMemberValue value = mapping.findDeclaredAttributeValue("path");
+        if (value == null) {
+            value = mapping.findDeclaredAttributeValue("value");
+        }
+        if (value instanceof PsiArrayInitializerMemberValue array) {
+            value = array.getInitializers().length == 0 ? null : array.getInitializers()[0];
+        }
+        if (value == null) {
+            return "";
+        }
+        Object path = JavaPsiFacade.getInstance(mapping.getProject()).getConstantEvaluationHelper().computeConstantExpression(value);
+        return path instanceof String string ? string : "";
+    }
+
+    private static boolean hasAnnotation(PsiClass psiClass, Set<String> annotations) {
+        return Arrays.stream(psiClass.getAnnotations())
+                .map(PsiAnnotation::getQualifiedName)
+                .anyMatch(annotations::contains);
+    }
+
+    private Set<String> feignAnnotations() {
+        if (feignAnnotations == null) {
+            feignAnnotations = DiscoveryContext.getInstance(project).annotationClosure(DiscoveryContext.FEIGN_CLIENT).stream()
+                    .map(PsiClass::getQualifiedName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+        }
+        return feignAnnotations;
+    }
+
+    private boolean isInScope(PsiMethod method) {
+        PsiFile psiFile = method.getContainingFile();
+        VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+        return file != null && scope.contains(file);
+    }
+}
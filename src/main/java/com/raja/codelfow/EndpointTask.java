@@ -0,0 +1,41 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Traces an endpoint with {@link EndpointFlow} and opens the viewer on its method level flow.
+ */
+public class EndpointTask extends Task.Backgroundable {
+
+    private final EndpointFlow.Endpoint endpoint;
+    private CodeflowGraph graph;
+    private GraphLayout layout;
+    private ReachabilityIndex reachability;
+
+    EndpointTask(@NotNull Project project, EndpointFlow.Endpoint endpoint) {
+        super(project, "Tracing endpoint", true);
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setText("Tracing " + endpoint.label());
+        Project project = getProject();
+        graph = ReadAction.nonBlocking(() -> EndpointFlow.getInstance(project).trace(endpoint))
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .expireWith(CodeflowService.getInstance(project))
+                .executeSynchronously();
+        layout = LayeredLayout.of(graph, id -> CodeflowViewer.isVisible(graph, id, project));
+        reachability = ReachabilityIndex.of(graph);
+    }
+
+    @Override
+    public void onSuccess() {
+        CodeflowViewer.displayNodes(graph, layout, reachability, null, getProject());
+    }
+}
@@ -0,0 +1,159 @@
+package com.raja.codelfow;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.project.Project;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Highlights the answers of a {@link ReachabilityIndex} in a drawn graph. Selecting a class highlights everything
+ * its data can end up in and everything whose data can end up in it; selecting a second class highlights the
+ * classes on any path between the two and draws a shortest one. Selecting a selected class again clears the
+ * highlighting. Every other class and reference is dimmed.
+ */
+class FlowHighlighter {
+
+    private static final int MAX_COUNTED_PATHS = 1_000;
+
+    private final Graph graph;
+    private final CodeflowGraph nodes;
+    private final ReachabilityIndex reachability;
+    private final Project project;
+    /**
+     * The style classes the elements had before they were highlighted, keyed by {@link #key(Element)}.
+     */
+    private final Map<String, Object> styleClasses = new HashMap<>();
+    private int source = -1;
+    private int target = -1;
+
+    FlowHighlighter(Graph graph, CodeflowGraph nodes, ReachabilityIndex reachability, Project project) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.reachability = reachability;
+        this.project = project;
+    }
+
+    void select(String qualifiedName) {
+        int id = nodes.id(qualifiedName);
+        if (id < 0) {
+            return;
+        }
+        if (id == source || id == target) {
+            clear();
+        } else if (source < 0 || target >= 0) {
+            source = id;
+            target = -1;
+            highlightFlowThrough(id);
+        } else {
+            target = id;
+            highlightBetween();
+        }
+    }
+
+    /**
+     * Clears the selection and restores the style of every highlighted element.
+     */
+    void clear() {
+        source = -1;
+        target = -1;
+        reset();
+    }
+
+    private void highlightFlowThrough(int id) {
+        BitSet downstream = reachability.reachableFrom(id);
+        BitSet upstream = reachability.reaching(id);
+        highlight(node -> downstream.get(node) || upstream.get(node),
+                edge -> downstream.get(edge[0]) && downstream.get(edge[1]) || upstream.get(edge[0]) && upstream.get(edge[1]),
+                new int[]{id});
+    }
+
+    private void highlightBetween() {
+        int from = source;
+        int to = target;
+        if (!reachability.reaches(from, to) && reachability.reaches(to, from)) {
+            from = target;
+            to = source;
+        }
+        BitSet between = reachability.between(from, to);
+        int[] shortestPath = reachability.shortestPath(from, to);
+        highlight(between::get, edge -> between.get(edge[0]) && between.get(edge[1]), shortestPath.length > 0 ? shortestPath : new int[]{source, target});
+
+        String content;
+        if (shortestPath.length == 0) {
+            content = "No flow between " + nodes.name(source) + " and " + nodes.name(target);
+        } else {
+            List<int[]> paths = reachability.paths(from, to, MAX_COUNTED_PATHS);
+            content = (paths.size() < MAX_COUNTED_PATHS ? paths.size() : MAX_COUNTED_PATHS + "+") + " paths from "
+                    + nodes.name(from) + " to " + nodes.name(to) + " through " + between.cardinality() + " classes, the shortest has "
+                    + (shortestPath.length - 1) + " steps";
+        }
+        NotificationGroupManager.getInstance().getNotificationGroup("Codeflow")
+                .createNotification("Codeflow", content, NotificationType.INFORMATION)
+                .notify(project);
+    }
+
+    /**
+     * @param path the classes to mark as selected, the references between consecutive ones are drawn as a path
+     */
+    private void highlight(IntPredicate highlightedNode, Predicate<int[]> highlightedEdge, int[] path) {
+        graph.nodes().forEach(node -> {
+            int id = nodes.id(node.getId());
+            setStyleClass(node, highlightedNode.test(id) ? original(node) : "dimmed");
+        });
+        graph.edges().forEach(edge -> {
+            int[] ends = {nodes.id(edge.getSourceNode().getId()), nodes.id(edge.getTargetNode().getId())};
+            setStyleClass(edge, highlightedEdge.test(ends) ? original(edge) : "dimmed");
+        });
+        for (int i = 0; i < path.length; i++) {
+            org.graphstream.graph.Node node = graph.getNode(nodes.qualifiedName(path[i]));
+            if (node != null) {
+                setStyleClass(node, "selected");
+            }
+            if (i > 0) {
+                Edge edge = graph.getEdge(nodes.qualifiedName(path[i - 1]) + "->" + nodes.qualifiedName(path[i]));
+                if (edge == null) {
+                    edge = graph.getEdge(nodes.qualifiedName(path[i]) + "->" + nodes.qualifiedName(path[i - 1]));
+                }
+                if (edge != null) {
+                    setStyleClass(edge, "path");
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        graph.nodes().forEach(node -> setStyleClass(node, original(node)));
+        graph.edges().forEach(edge -> setStyleClass(edge, original(edge)));
+        styleClasses.clear();
+    }
+
+    private Object original(Element element) {
+        String key = key(element);
+        return styleClasses.containsKey(key) ? styleClasses.get(key) : element.getAttribute("ui.class");
+    }
+
+    private void setStyleClass(Element element, Object styleClass) {
+        String key = key(element);
+        if (!styleClasses.containsKey(key)) {
+            styleClasses.put(key, element.getAttribute("ui.class"));
+        }
+        if (styleClass == null) {
+            element.removeAttribute("ui.class");
+        } else {
+            element.setAttribute("ui.class", styleClass);
+        }
+    }
+
+    private static String key(Element element) {
+        return (element instanceof Edge ? "edge:" : "node:") + element.getId();
+    }
+}
@@ -0,0 +1,48 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiAnonymousClass;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Draws the codeflow around the class under the caret only.
+ */
+public class FocusAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        PsiClass psiClass = classAtCaret(e);
+        if (project == null || psiClass == null) {
+            return;
+        }
+        CodeflowService.getInstance(project).focus(CodeflowAnalysis.key(psiClass));
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getData(CommonDataKeys.PSI_FILE) instanceof PsiJavaFile);
+    }
+
+    private static PsiClass classAtCaret(AnActionEvent e) {
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        PsiFile psiFile = e.getData(CommonDataKeys.PSI_FILE);
+        if (editor == null || psiFile == null) {
+            return null;
+        }
+        PsiClass psiClass = PsiTreeUtil.getParentOfType(psiFile.findElementAt(editor.getCaretModel().getOffset()), PsiClass.class, false);
+        while (psiClass instanceof PsiAnonymousClass || psiClass instanceof PsiTypeParameter) {
+            psiClass = PsiTreeUtil.getParentOfType(psiClass, PsiClass.class, true);
+        }
+        return psiClass;
+    }
+}
@@ -0,0 +1,40 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Resolves the initial neighbourhood of a {@link FocusedExploration} and opens the focused viewer.
+ */
+public class FocusTask extends Task.Backgroundable {
+
+    private final FocusedExploration exploration;
+    private CodeflowGraph graph;
+    private GraphLayout layout;
+
+    FocusTask(@NotNull Project project, FocusedExploration exploration) {
+        super(project, "Exploring codeflow", true);
+        this.exploration = exploration;
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setText("Resolving references of " + exploration.getRoot());
+        Project project = getProject();
+        int depth = CodeflowSettings.getInstance(project).getFocusDepth();
+        graph = ReadAction.nonBlocking(() -> exploration.start(depth))
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .expireWith(CodeflowService.getInstance(project))
+                .executeSynchronously();
+        layout = LayeredLayout.of(graph, id -> CodeflowViewer.isVisible(graph, id, project));
+    }
+
+    @Override
+    public void onSuccess() {
+        CodeflowViewer.displayFocused(exploration, graph, layout, getProject());
+    }
+}
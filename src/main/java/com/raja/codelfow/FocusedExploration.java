@@ -0,0 +1,233 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.impl.JavaPsiFacadeImpl;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Explores the codeflow around a single class instead of the whole project. Only the classes within a few hops of
+ * the root are resolved up front, any other class is resolved when it is {@link #expand(String) expanded}, so the
+ * cost depends on the explored part of the graph rather than on the project size. Classes returned by a {@code @Bean}
+ * method are only known to be components once they or the class declaring the method are expanded, finding them up
+ * front would take a search of the whole project. Must be run inside a read action.
+ */
+public class FocusedExploration {
+
+    private static final String REPOSITORY = "org.springframework.data.repository.Repository";
+
+    private final Project project;
+    @Getter
+    private final String root;
+    private final ProductionScope production;
+    private final GlobalSearchScope scope;
+    private final GraphBuilder nodes = new GraphBuilder();
+    private final IntOpenHashSet expanded = new IntOpenHashSet();
+    private Set<String> componentAnnotations;
+    private Set<String> feignAnnotations;
+    private ClassificationRules rules;
+
+    public FocusedExploration(Project project, String root) {
+        this.project = project;
+        this.root = root;
+        this.production = ProductionScope.of(project);
+        this.scope = ProductionScope.forAnalysis(project);
+    }
+
+    /**
+     * Resolves the classes referencing and referenced by the root, repeated {@code depth} hops outwards.
+     */
+    public CodeflowGraph start(int depth) {
+        PsiClass rootClass = findClass(root);
+        if (rootClass == null) {
+            return nodes.freeze();
+        }
+        IntArrayList frontier = new IntArrayList();
+        frontier.add(intern(rootClass, new IntArrayList()));
+        for (int hop = 0; hop < depth && !frontier.isEmpty(); hop++) {
+            IntArrayList next = new IntArrayList();
+            for (int i = 0; i < frontier.size(); i++) {
+                expand(frontier.getInt(i), next);
+            }
+            frontier = next;
+        }
+        return nodes.freeze();
+    }
+
+    /**
+     * Resolves the references of the class with {@code qualifiedName}, adding its neighbours to the graph.
+     *
+     * @return the graph explored so far
+     */
+    public CodeflowGraph expand(String qualifiedName) {
+        int id = nodes.id(qualifiedName);
+        if (id >= 0) {
+            expand(id, new IntArrayList());
+        }
+        return nodes.freeze();
+    }
+
+    public synchronized boolean isExpanded(String qualifiedName) {
+        int id = nodes.id(qualifiedName);
+        return id >= 0 && expanded.contains(id);
+    }
+
+    /**
+     * Adds the classes referencing {@code id} and the components it references, and flags it a component if a
+     * referencing {@code @Bean} method returns it. The node is only marked expanded once all of them are added, so an
+     * expansion interrupted by a write action can simply be run again.
+     */
+    private void expand(int id, IntArrayList added) {
+        synchronized (this) {
+            if (expanded.contains(id)) {
+                return;
+            }
+        }
+        PsiClass clazz = findClass(nodes.qualifiedName(id));
+        if (clazz != null) {
+            Collection<PsiReference> references = ReferencesSearch.search(clazz, scope).findAll();
+            if (references.stream().anyMatch(FocusedExploration::isBeanReturnType)) {
+                nodes.addFlags(id, NodeFlags.COMPONENT);
+            }
+            CodeflowAnalysis.referencingClasses(references).forEach(fromClass -> {
+                ProgressManager.checkCanceled();
+                nodes.addReference(intern(fromClass, added), id);
+            });
+            Set<PsiClass> beanTypes = Arrays.stream(clazz.getMethods())
+                    .filter(method -> method.hasAnnotation(DiscoveryContext.BEAN))
+                    .map(method -> PsiUtil.resolveClassInType(method.getReturnType()))
+                    .collect(Collectors.toSet());
+            PsiTreeUtil.findChildrenOfType(clazz, PsiJavaCodeReferenceElement.class).stream()
+                    .map(PsiJavaCodeReferenceElement::resolve)
+                    .filter(psiElement -> psiElement instanceof PsiClassImpl && psiElement != clazz)
+                    .map(psiElement -> (PsiClassImpl) psiElement)
+                    .distinct()
+                    .filter(this::isInScope)
+                    .filter(target -> target.isInterface() || beanTypes.contains(target)
+                            || NodeFlags.has(flags(target), NodeFlags.COMPONENT))
+                    .forEach(target -> {
+                        int to = intern(target, added);
+                        if (beanTypes.contains(target)) {
+                            nodes.addFlags(to, NodeFlags.COMPONENT);
+                        }
+                        nodes.addReference(id, to);
+                        if (clazz.isInheritor(target, false)) {
+                            nodes.addInheritance(id, to);
+                        }
+                    });
+        }
+        synchronized (this) {
+            expanded.add(id);
+        }
+    }
+
+    private int intern(PsiClass psiClass, IntArrayList added) {
+        String key = CodeflowAnalysis.key(psiClass);
+        int id = nodes.id(key);
+        if (id >= 0) {
+            return id;
+        }
+        id = nodes.intern(key, psiClass.getName(), CodeflowAnalysis.fileUrl(psiClass), flags(psiClass));
+        added.add(id);
+        int child = id;
+        Arrays.stream(psiClass.getSupers())
+                .mapToInt(superClass -> nodes.id(CodeflowAnalysis.key(superClass)))
+                .filter(superId -> superId >= 0)
+                .forEach(superId -> nodes.addInheritance(child, superId));
+        return id;
+    }
+
+    private int flags(PsiClass psiClass) {
+        int flags = rules().flags(psiClass);
+        if (hasAnnotation(psiClass, componentAnnotations())) {
+            flags |= NodeFlags.COMPONENT;
+        }
+        if (hasAnnotation(psiClass, feignAnnotations())) {
+            flags |= NodeFlags.COMPONENT | NodeFlags.REPOSITORY | NodeFlags.INTERFACE;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, REPOSITORY)) {
+            flags |= NodeFlags.COMPONENT | NodeFlags.REPOSITORY;
+        }
+        if (psiClass.isInterface()) {
+            flags |= NodeFlags.INTERFACE;
+        }
+        VirtualFile file = psiClass.getContainingFile().getVirtualFile();
+        if (CodeflowAnalysis.hasTestLikeName(psiClass.getName()) || (file != null && production.isTestFile(file))) {
+            flags |= NodeFlags.TEST;
+        }
+        return flags;
+    }
+
+    /**
+     * @return whether {@code reference} is the return type of a {@code @Bean} method
+     */
+    private static boolean isBeanReturnType(PsiReference reference) {
+        PsiElement element = reference.getElement();
+        PsiMethod method = PsiTreeUtil.getParentOfType(element, PsiMethod.class);
+        return method != null
+                && PsiTreeUtil.isAncestor(method.getReturnTypeElement(), element, false)
+                && method.hasAnnotation(DiscoveryContext.BEAN);
+    }
+
+    private static boolean hasAnnotation(PsiClass psiClass, Set<String> annotations) {
+        return Arrays.stream(psiClass.getAnnotations())
+                .map(PsiAnnotation::getQualifiedName)
+                .anyMatch(annotations::contains);
+    }
+
+    private Set<String> componentAnnotations() {
+        if (componentAnnotations == null) {
+            componentAnnotations = qualifiedNames(DiscoveryContext.COMPONENT);
+        }
+        return componentAnnotations;
+    }
+
+    private Set<String> feignAnnotations() {
+        if (feignAnnotations == null) {
+            feignAnnotations = qualifiedNames(DiscoveryContext.FEIGN_CLIENT);
+        }
+        return feignAnnotations;
+    }
+
+    private ClassificationRules rules() {
+        if (rules == null) {
+            rules = ClassificationRules.of(project);
+        }
+        return rules;
+    }
+
+    private Set<String> qualifiedNames(String annotation) {
+        return DiscoveryContext.getInstance(project).annotationClosure(annotation).stream()
+                .map(PsiClass::getQualifiedName)
+                .collect(Collectors.toSet());
+    }
+
+    private boolean isInScope(PsiClass psiClass) {
+        VirtualFile file = psiClass.getContainingFile().getVirtualFile();
+        return file != null && scope.contains(file);
+    }
+
+    private PsiClass findClass(String qualifiedName) {
+        return JavaPsiFacadeImpl.getInstance(project).findClass(qualifiedName, scope);
+    }
+}
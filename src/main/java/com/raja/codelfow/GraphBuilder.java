@@ -0,0 +1,120 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutable, thread safe counterpart of {@link CodeflowGraph}. Classes are interned to consecutive int ids by
+ * qualified name, their edges are kept in primitive int sets until the graph is {@link #freeze() frozen}.
+ */
+public class GraphBuilder {
+
+    private final Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+    private final List<String> qualifiedNames = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> fileUrls = new ArrayList<>();
+    private final IntArrayList flags = new IntArrayList();
+    private final List<IntOpenHashSet> referencedFrom = new ArrayList<>();
+    private final List<IntOpenHashSet> inheritsFrom = new ArrayList<>();
+
+    public GraphBuilder() {
+        ids.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return a builder holding the classes and edges of {@code graph} under the same ids
+     */
+    public static GraphBuilder of(CodeflowGraph graph) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int id = 0; id < graph.size(); id++) {
+            builder.intern(graph.qualifiedName(id), graph.name(id), graph.fileUrl(id), graph.flags(id));
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            int node = id;
+            graph.forEachReferencedFrom(node, from -> builder.addReference(from, node));
+            graph.forEachInheritsFrom(node, parent -> builder.addInheritance(node, parent));
+        }
+        return builder;
+    }
+
+    /**
+     * @return the id of the class with {@code qualifiedName}, adding it with {@code flags} if it is not in the graph
+     * yet
+     */
+    public synchronized int intern(String qualifiedName, String name, String fileUrl, int flags) {
+        int id = ids.getInt(qualifiedName);
+        if (id >= 0) {
+            return id;
+        }
+        id = qualifiedNames.size();
+        ids.put(qualifiedName, id);
+        qualifiedNames.add(qualifiedName);
+        names.add(name);
+        fileUrls.add(fileUrl);
+        this.flags.add(flags);
+        referencedFrom.add(null);
+        inheritsFrom.add(null);
+        return id;
+    }
+
+    /**
+     * @return the id of the class with {@code qualifiedName}, or {@code -1} if it is not in the graph
+     */
+    public synchronized int id(String qualifiedName) {
+        return ids.getInt(qualifiedName);
+    }
+
+    public synchronized String qualifiedName(int id) {
+        return qualifiedNames.get(id);
+    }
+
+    public synchronized int size() {
+        return qualifiedNames.size();
+    }
+
+    public synchronized int flags(int id) {
+        return flags.getInt(id);
+    }
+
+    public synchronized boolean has(int id, int flag) {
+        return NodeFlags.has(flags.getInt(id), flag);
+    }
+
+    public synchronized void addFlags(int id, int flags) {
+        this.flags.set(id, this.flags.getInt(id) | flags);
+    }
+
+    /**
+     * Records that class {@code from} references class {@code to}.
+     */
+    public synchronized void addReference(int from, int to) {
+        IntOpenHashSet sources = referencedFrom.get(to);
+        if (sources == null) {
+            sources = new IntOpenHashSet(4);
+            referencedFrom.set(to, sources);
+        }
+        sources.add(from);
+    }
+
+    public synchronized void addInheritance(int child, int parent) {
+        IntOpenHashSet parents = inheritsFrom.get(child);
+        if (parents == null) {
+            parents = new IntOpenHashSet(2);
+            inheritsFrom.set(child, parents);
+        }
+        parents.add(parent);
+    }
+
+    public synchronized CodeflowGraph freeze() {
+        return new CodeflowGraph(qualifiedNames.toArray(String[]::new),
+                names.toArray(String[]::new),
+                fileUrls.toArray(String[]::new),
+                flags.toIntArray(),
+                CodeflowGraph.Adjacency.of(referencedFrom),
+                CodeflowGraph.Adjacency.of(inheritsFrom));
+    }
+}
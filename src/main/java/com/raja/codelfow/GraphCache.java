@@ -0,0 +1,213 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileTypes.FileTypeRegistry;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists the last computed codeflow graph under the IDE system directory and tracks which files changed since,
+ * so {@link CodeflowAnalysis} only has to recompute what those changes affect. Only the Java files in the project's
+ * content are tracked.
+ */
+@Service
+public final class GraphCache implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(GraphCache.class);
+
+    private final Project project;
+    private final Set<String> dirtyFiles = new HashSet<>();
+    /**
+     * Guards reading and writing the cache file, the monitor of the service only guards {@link #dirtyFiles} which
+     * the listeners update on the EDT.
+     */
+    private final Object ioLock = new Object();
+    private volatile CachedGraph graph;
+    private volatile boolean loaded;
+
+    public GraphCache(Project project) {
+        this.project = project;
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                markDirty(event.getFile());
+            }
+        }, this);
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                List<String> urls = events.stream()
+                        .map(VFileEvent::getFile)
+                        .filter(GraphCache.this::isProjectJavaFile)
+                        .map(VirtualFile::getUrl)
+                        .toList();
+                if (!urls.isEmpty()) {
+                    synchronized (GraphCache.this) {
+                        dirtyFiles.addAll(urls);
+                    }
+                }
+            }
+        });
+    }
+
+    public static GraphCache getInstance(Project project) {
+        return project.getService(GraphCache.class);
+    }
+
+    /**
+     * @return the last computed graph, read from disk on first access, or {@code null} if there is none
+     */
+    public CachedGraph get() {
+        if (!loaded) {
+            synchronized (ioLock) {
+                if (!loaded) {
+                    graph = read();
+                    loaded = true;
+                }
+            }
+        }
+        return graph;
+    }
+
+    public synchronized Set<String> dirtyFiles() {
+        return new HashSet<>(dirtyFiles);
+    }
+
+    /**
+     * @return the urls of the files which were added, removed or changed since {@code cached} was computed
+     */
+    public synchronized Set<String> changedFiles(CachedGraph cached, Map<String, Long> stamps) {
+        Set<String> changed = new HashSet<>();
+        stamps.forEach((url, stamp) -> {
+            if (!stamp.equals(cached.getStamps().get(url))) {
+                changed.add(url);
+            }
+        });
+        cached.getStamps().keySet().stream()
+                .filter(url -> !stamps.containsKey(url))
+                .forEach(changed::add);
+        for (Document document : FileDocumentManager.getInstance().getUnsavedDocuments()) {
+            VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+            if (file != null) {
+                dirtyFiles.add(file.getUrl());
+            }
+        }
+        dirtyFiles.removeIf(url -> !stamps.containsKey(url) && !cached.getStamps().containsKey(url));
+        changed.addAll(dirtyFiles);
+        return changed;
+    }
+
+    /**
+     * Replaces the cached graph. {@code handledFiles} are the changed files which were taken into account while
+     * computing it.
+     */
+    public void store(CachedGraph graph, Set<String> handledFiles) {
+        synchronized (this) {
+            dirtyFiles.removeAll(handledFiles);
+            dirtyFiles.removeIf(url -> !graph.getStamps().containsKey(url));
+        }
+        synchronized (ioLock) {
+            this.graph = graph;
+            this.loaded = true;
+            write(graph);
+        }
+    }
+
+    private void markDirty(PsiFile file) {
+        VirtualFile virtualFile = file != null ? file.getVirtualFile() : null;
+        if (isProjectJavaFile(virtualFile)) {
+            synchronized (this) {
+                dirtyFiles.add(virtualFile.getUrl());
+            }
+        }
+    }
+
+    /**
+     * @return whether {@code file} may end up in the graph, events for any other file are ignored
+     */
+    private boolean isProjectJavaFile(VirtualFile file) {
+        return file != null && file.isValid() && !file.isDirectory()
+                && FileTypeRegistry.getInstance().isFileOfType(file, JavaFileType.INSTANCE)
+                && ProjectFileIndex.getInstance(project).isInContent(file);
+    }
+
+    private Path cacheFile() {
+        return Paths.get(PathManager.getSystemPath(), "codeflow", project.getLocationHash() + ".graph");
+    }
+
+    private CachedGraph read() {
+        Path file = cacheFile();
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return CachedGraph.read(in);
+        } catch (IOException e) {
+            LOG.warn("Could not read codeflow cache " + file, e);
+            return null;
+        }
+    }
+
+    private void write(CachedGraph graph) {
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                graph.write(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.warn("Could not write codeflow cache " + file, e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.raja.codelfow;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed coordinates for the nodes of a graph, computed by {@link LayeredLayout}. Nodes that are not drawn have no
+ * position.
+ */
+public class GraphLayout {
+
+    private final float[] x;
+    private final float[] y;
+
+    GraphLayout(float[] x, float[] y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public boolean isPlaced(int id) {
+        return id < x.length && !Float.isNaN(x[id]);
+    }
+
+    public float x(int id) {
+        return x[id];
+    }
+
+    public float y(int id) {
+        return y[id];
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(x.length);
+        for (int i = 0; i < x.length; i++) {
+            out.writeFloat(x[i]);
+            out.writeFloat(y[i]);
+        }
+    }
+
+    public static GraphLayout read(DataInput in) throws IOException {
+        int size = in.readInt();
+        float[] x = new float[size];
+        float[] y = new float[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = in.readFloat();
+            y[i] = in.readFloat();
+        }
+        return new GraphLayout(x, y);
+    }
+}
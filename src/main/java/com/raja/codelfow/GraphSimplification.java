@@ -0,0 +1,83 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.project.Project;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Thins out the references drawn for a graph without changing where data can flow between the drawn classes, see
+ * {@link ReachabilityIndex#forEachReducedEdge}. The strongly connected components of the drawn classes are their
+ * dependency cycles: their classes are flagged {@link NodeFlags#CYCLE} and connected by two spanning trees only,
+ * and the references between components are reduced to the transitive reduction of the condensed graph. Every class
+ * and inheritance is kept, so the simplified graph has the ids of the original one.
+ *
+ * @param graph           the graph with the references to draw
+ * @param referenceCount  the number of references between drawn classes before simplifying
+ * @param keptCount       the number of references between drawn classes after simplifying
+ * @param cycleCount      the number of dependency cycles among the drawn classes
+ * @param cycleClassCount the number of drawn classes in a dependency cycle
+ */
+record GraphSimplification(CodeflowGraph graph, int referenceCount, int keptCount, int cycleCount, int cycleClassCount) {
+
+    /**
+     * @param drawn the classes which are drawn, references from or to other classes are kept as they are
+     */
+    static GraphSimplification of(CodeflowGraph nodes, IntPredicate drawn) {
+        ReachabilityIndex flow = ReachabilityIndex.of(nodes, drawn);
+        LongOpenHashSet kept = new LongOpenHashSet();
+        flow.forEachReducedEdge((from, to) -> kept.add(edge(from, to)));
+
+        GraphBuilder builder = new GraphBuilder();
+        for (int id = 0; id < nodes.size(); id++) {
+            int flags = nodes.flags(id);
+            if (flow.componentSize(flow.component(id)) > 1) {
+                flags |= NodeFlags.CYCLE;
+            }
+            builder.intern(nodes.qualifiedName(id), nodes.name(id), nodes.fileUrl(id), flags);
+        }
+        int[] referenceCount = new int[2];
+        for (int id = 0; id < nodes.size(); id++) {
+            int referenced = id;
+            nodes.forEachReferencedFrom(referenced, referencing -> {
+                if (!drawn.test(referenced) || !drawn.test(referencing)) {
+                    builder.addReference(referencing, referenced);
+                    return;
+                }
+                referenceCount[0]++;
+                long flowEdge = nodes.inheritsFrom(referencing, referenced)
+                        ? edge(referenced, referencing)
+                        : edge(referencing, referenced);
+                if (kept.contains(flowEdge)) {
+                    referenceCount[1]++;
+                    builder.addReference(referencing, referenced);
+                }
+            });
+            nodes.forEachInheritsFrom(referenced, parent -> builder.addInheritance(referenced, parent));
+        }
+
+        int cycleCount = 0;
+        int cycleClassCount = 0;
+        for (int c = 0; c < flow.componentCount(); c++) {
+            if (flow.componentSize(c) > 1) {
+                cycleCount++;
+                cycleClassCount += flow.componentSize(c);
+            }
+        }
+        return new GraphSimplification(builder.freeze(), referenceCount[0], referenceCount[1], cycleCount, cycleClassCount);
+    }
+
+    /**
+     * @return {@code nodes} simplified if the project's settings ask for it, {@code nodes} otherwise
+     */
+    static CodeflowGraph drawn(CodeflowGraph nodes, Project project) {
+        if (!CodeflowSettings.getInstance(project).isSimplifyEdges()) {
+            return nodes;
+        }
+        return of(nodes, id -> CodeflowViewer.isVisible(nodes, id, project)).graph();
+    }
+
+    private static long edge(int from, int to) {
+        return (long) from << 32 | to & 0xFFFFFFFFL;
+    }
+}
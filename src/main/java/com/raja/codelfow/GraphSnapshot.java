@@ -0,0 +1,258 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.util.io.URLUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A computed graph and its layout in a compact binary file which is opened without a project index. The file is a
+ * sequence of big endian ints: a header, an interned string table, the name ids and flags of every node, the
+ * {@link CodeflowGraph} adjacency rows and the optional layout coordinates. Every section is int aligned, so
+ * {@link #read} maps the file and the graph reads the flags and adjacency rows straight from views of the mapping;
+ * only the string table is decoded and the layout copied. The files of the classes are stored relative to the
+ * project directory, so a snapshot opens the classes in any checkout of the project.
+ */
+public final class GraphSnapshot {
+
+    public static final String EXTENSION = "codeflow";
+
+    private static final int MAGIC = 0x43464753;
+    private static final int VERSION = 2;
+    private static final int HEADER_INTS = 8;
+    private static final int NONE = -1;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * @return the url the files of a snapshot of {@code project} are stored relative to, {@code null} if it has none
+     */
+    public static String baseUrl(Project project) {
+        String basePath = project.getBasePath();
+        return basePath == null ? null : VfsUtilCore.pathToUrl(basePath);
+    }
+
+    /**
+     * @param layout  the positions to store along with the graph, may be {@code null}
+     * @param baseUrl the url of the project directory, the urls of the files inside it are stored relative to it
+     */
+    public static void write(CodeflowGraph graph, GraphLayout layout, String baseUrl, Path file) throws IOException {
+        int size = graph.size();
+        Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+        ids.defaultReturnValue(-1);
+        List<byte[]> strings = new ArrayList<>();
+        int[] qualifiedNames = new int[size];
+        int[] names = new int[size];
+        int[] fileUrls = new int[size];
+        for (int id = 0; id < size; id++) {
+            qualifiedNames[id] = intern(graph.qualifiedName(id), ids, strings);
+            names[id] = intern(graph.name(id), ids, strings);
+            fileUrls[id] = graph.fileUrl(id) == null ? NONE : intern(relativize(graph.fileUrl(id), baseUrl), ids, strings);
+        }
+        int stringBytes = strings.stream().mapToInt(bytes -> bytes.length).sum();
+        int[][] references = new int[size][];
+        int[][] inheritances = new int[size][];
+        for (int id = 0; id < size; id++) {
+            references[id] = graph.referencedFrom(id);
+            IntArrayList parents = new IntArrayList();
+            graph.forEachInheritsFrom(id, parents::add);
+            inheritances[id] = parents.toIntArray();
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(strings.size());
+            out.writeInt(stringBytes);
+            out.writeInt(graph.edgeCount());
+            out.writeInt(Arrays.stream(inheritances).mapToInt(row -> row.length).sum());
+            out.writeInt(layout == null ? NONE : layout.size());
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] bytes : strings) {
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : strings) {
+                out.write(bytes);
+            }
+            out.write(new byte[padding(stringBytes)]);
+
+            writeInts(out, qualifiedNames);
+            writeInts(out, names);
+            writeInts(out, fileUrls);
+            for (int id = 0; id < size; id++) {
+                out.writeInt(graph.flags(id));
+            }
+            writeRows(out, references);
+            writeRows(out, inheritances);
+            if (layout != null) {
+                for (int id = 0; id < layout.size(); id++) {
+                    out.writeFloat(layout.x(id));
+                }
+                for (int id = 0; id < layout.size(); id++) {
+                    out.writeFloat(layout.y(id));
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param baseUrl the url of the project directory the relative file urls are resolved against
+     * @return the graph stored in {@code file}, with its layout if one was stored
+     * @throws IOException if the file cannot be read or is no snapshot of this version
+     */
+    public static CachedGraph read(Path file, String baseUrl) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer ints = mapped.asIntBuffer();
+            if (ints.remaining() < HEADER_INTS || ints.get(0) != MAGIC || ints.get(1) != VERSION) {
+                throw new IOException(file + " is no codeflow snapshot");
+            }
+            int size = ints.get(2);
+            int stringCount = ints.get(3);
+            int stringBytes = ints.get(4);
+            int referenceCount = ints.get(5);
+            int inheritanceCount = ints.get(6);
+            int layoutSize = ints.get(7);
+            int position = HEADER_INTS;
+
+            int[] stringOffsets = ints(ints, position, stringCount + 1);
+            position += stringCount + 1;
+            byte[] bytes = new byte[stringBytes];
+            mapped.get(position * Integer.BYTES, bytes);
+            position += (stringBytes + padding(stringBytes)) / Integer.BYTES;
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = new String(bytes, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i], StandardCharsets.UTF_8);
+            }
+
+            String[] qualifiedNames = strings(ints, position, size, strings);
+            position += size;
+            String[] names = strings(ints, position, size, strings);
+            position += size;
+            String[] fileUrls = strings(ints, position, size, strings);
+            position += size;
+            for (int id = 0; id < size; id++) {
+                fileUrls[id] = resolve(fileUrls[id], baseUrl);
+            }
+            IntBuffer flags = ints.slice(position, size);
+            position += size;
+
+            IntBuffer referenceOffsets = ints.slice(position, size + 1);
+            position += size + 1;
+            IntBuffer references = ints.slice(position, referenceCount);
+            position += referenceCount;
+            IntBuffer inheritanceOffsets = ints.slice(position, size + 1);
+            position += size + 1;
+            IntBuffer inheritances = ints.slice(position, inheritanceCount);
+            position += inheritanceCount;
+
+            CodeflowGraph graph = new CodeflowGraph(qualifiedNames, names, fileUrls, flags,
+                    new CodeflowGraph.Adjacency(referenceOffsets, references),
+                    new CodeflowGraph.Adjacency(inheritanceOffsets, inheritances));
+            GraphLayout layout = null;
+            if (layoutSize != NONE) {
+                float[] x = new float[layoutSize];
+                float[] y = new float[layoutSize];
+                mapped.asFloatBuffer().get(position, x).get(position + layoutSize, y);
+                layout = new GraphLayout(x, y);
+            }
+            return new CachedGraph(file.toString(), Map.of(), graph, layout);
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException(file + " is corrupt", e);
+        }
+    }
+
+    private static int intern(String value, Object2IntOpenHashMap<String> ids, List<byte[]> strings) {
+        int id = ids.getInt(value);
+        if (id < 0) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    private static String relativize(String url, String baseUrl) {
+        if (baseUrl != null && url.startsWith(baseUrl + "/")) {
+            return url.substring(baseUrl.length() + 1);
+        }
+        return url;
+    }
+
+    /**
+     * @return {@code url} if it is absolute, a url stored relative to the project directory resolved against
+     * {@code baseUrl} otherwise
+     */
+    private static String resolve(String url, String baseUrl) {
+        if (url == null || url.contains(URLUtil.SCHEME_SEPARATOR)) {
+            return url;
+        }
+        return baseUrl == null ? null : baseUrl + "/" + url;
+    }
+
+    private static int padding(int bytes) {
+        return (Integer.BYTES - bytes % Integer.BYTES) % Integer.BYTES;
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Writes {@code rows} as compressed sparse rows, the offsets followed by the concatenated rows.
+     */
+    private static void writeRows(DataOutput out, int[][] rows) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (int[] row : rows) {
+            offset += row.length;
+            out.writeInt(offset);
+        }
+        for (int[] row : rows) {
+            writeInts(out, row);
+        }
+    }
+
+    private static int[] ints(IntBuffer ints, int position, int length) {
+        int[] values = new int[length];
+        ints.get(position, values);
+        return values;
+    }
+
+    private static String[] strings(IntBuffer ints, int position, int length, String[] strings) {
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            int id = ints.get(position + i);
+            values[i] = id == NONE ? null : strings[id];
+        }
+        return values;
+    }
+}
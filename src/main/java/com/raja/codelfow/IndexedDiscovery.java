@@ -0,0 +1,239 @@
+package com.raja.codelfow;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.util.indexing.FileBasedIndex;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the codeflow graph from {@link CodeflowIndex} data only. Unlike {@link CodeflowAnalysis} a class is
+ * only considered to reference a component when it gets the component injected, through a field, a constructor
+ * or {@code @Bean} method parameter.
+ */
+public class IndexedDiscovery {
+
+    private static final String SERVICE_ACTIVATOR = "org.springframework.integration.annotation.ServiceActivator";
+    private static final Set<String> PUBSUB_PUBLISHERS = Set.of(
+            "com.google.cloud.spring.pubsub.core.PubSubTemplate",
+            "com.google.cloud.spring.pubsub.core.publisher.PubSubPublisherOperations",
+            "org.springframework.messaging.MessageChannel");
+
+    private record Entry(CodeflowFileData.IndexedClass indexedClass, CodeflowFileData file, String fileUrl, boolean test) {
+    }
+
+    private final Project project;
+    private final ProgressIndicator indicator;
+    private final AnalysisMetrics metrics;
+    private final Map<String, Entry> classes = new HashMap<>();
+
+    public IndexedDiscovery(Project project, ProgressIndicator indicator, AnalysisMetrics metrics) {
+        this.project = project;
+        this.indicator = indicator;
+        this.metrics = metrics;
+    }
+
+    public CodeflowGraph run() {
+        phase(Phase.COMPONENTS);
+        loadIndex();
+        Set<String> componentAnnotations = annotationClosure(DiscoveryContext.COMPONENT);
+        ClassificationRules rules = ClassificationRules.of(project);
+        Map<Entry, Integer> classified = new HashMap<>();
+        classes.values().forEach(entry -> classified.put(entry, classify(rules, entry)));
+        Set<Entry> components = classes.values().stream()
+                .filter(entry -> hasAnnotation(entry, componentAnnotations) || NodeFlags.has(classified.get(entry), NodeFlags.COMPONENT))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        phase(Phase.BEANS);
+        Set<Entry> beans = classes.values().stream()
+                .flatMap(entry -> entry.indexedClass().getBeanTypes().stream().map(beanType -> resolveClass(entry, beanType)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        components.addAll(beans);
+        List<Entry> autowiredInterfaces = components.stream()
+                .flatMap(entry -> entry.indexedClass().getSupers().stream().map(superName -> resolveClass(entry, superName)))
+                .filter(Objects::nonNull)
+                .toList();
+        components.addAll(autowiredInterfaces);
+
+        phase(Phase.REPOSITORIES);
+        Set<Entry> repositories = classes.values().stream()
+                .filter(entry -> isRepository(entry, new HashSet<>()))
+                .collect(Collectors.toSet());
+
+        phase(Phase.FEIGN);
+        Set<String> feignAnnotations = annotationClosure(DiscoveryContext.FEIGN_CLIENT);
+        Set<Entry> feignInterfaces = classes.values().stream()
+                .filter(entry -> hasAnnotation(entry, feignAnnotations))
+                .collect(Collectors.toSet());
+
+        phase(Phase.PUBSUB);
+        Set<Entry> pubsubs = classes.values().stream()
+                .filter(entry -> entry.indexedClass().getInputChannelAnnotations().stream()
+                        .anyMatch(annotation -> resolvesTo(entry, annotation, Set.of(SERVICE_ACTIVATOR))))
+                .collect(Collectors.toSet());
+        Set<Entry> pubsubComponents = classes.values().stream()
+                .filter(entry -> entry.indexedClass().getInjectedTypes().stream()
+                        .anyMatch(type -> resolvesTo(entry, type, PUBSUB_PUBLISHERS)))
+                .collect(Collectors.toSet());
+
+        components.addAll(repositories);
+        components.addAll(feignInterfaces);
+
+        GraphBuilder nodes = new GraphBuilder();
+        components.forEach(entry -> {
+            CodeflowFileData.IndexedClass indexedClass = entry.indexedClass();
+            int flags = NodeFlags.COMPONENT | classified.getOrDefault(entry, 0);
+            if (entry.test() || CodeflowAnalysis.hasTestLikeName(indexedClass.getName())) {
+                flags |= NodeFlags.TEST;
+            }
+            if (repositories.contains(entry) || pubsubComponents.contains(entry)) {
+                flags |= NodeFlags.REPOSITORY;
+            }
+            if (feignInterfaces.contains(entry)) {
+                flags |= NodeFlags.REPOSITORY | NodeFlags.INTERFACE;
+            }
+            if (indexedClass.isInterface()) {
+                flags |= NodeFlags.INTERFACE;
+            }
+            if (pubsubs.contains(entry)) {
+                flags |= NodeFlags.PUBSUB;
+            }
+            nodes.intern(indexedClass.getQualifiedName(), indexedClass.getName(), entry.fileUrl(), flags);
+        });
+        components.forEach(entry -> addInheritance(nodes, entry, nodes.id(entry.indexedClass().getQualifiedName())));
+
+        phase(Phase.REFERENCES);
+        int done = 0;
+        for (Entry entry : classes.values()) {
+            ProgressManager.checkCanceled();
+            indicator.setFraction(Phase.REFERENCES.fraction(done++, classes.size()));
+            entry.indexedClass().getInjectedTypes().stream()
+                    .map(type -> resolveClass(entry, type))
+                    .filter(Objects::nonNull)
+                    .filter(components::contains)
+                    .filter(target -> target != entry)
+                    .distinct()
+                    .forEach(target -> addReference(nodes, entry, nodes.id(target.indexedClass().getQualifiedName())));
+        }
+        return nodes.freeze();
+    }
+
+    private void phase(Phase phase) {
+        ProgressManager.checkCanceled();
+        metrics.startPhase(phase);
+        indicator.setText(phase.getText());
+        indicator.setFraction(phase.startFraction());
+    }
+
+    private void loadIndex() {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        ProductionScope production = ProductionScope.of(project);
+        for (VirtualFile file : FileTypeIndex.getFiles(JavaFileType.INSTANCE, ProductionScope.forAnalysis(project))) {
+            ProgressManager.checkCanceled();
+            boolean test = production.isTestFile(file);
+            index.getFileData(CodeflowIndex.NAME, file, project).values()
+                    .forEach(data -> data.getClasses().stream()
+                            .filter(indexedClass -> indexedClass.getQualifiedName() != null)
+                            .forEach(indexedClass -> classes.put(indexedClass.getQualifiedName(), new Entry(indexedClass, data, file.getUrl(), test))));
+        }
+    }
+
+    /**
+     * @return the qualified names of the {@link DiscoveryContext#annotationClosure(String) annotation closure} of
+     * {@code root}, completed with the annotation types only known from the index
+     */
+    private Set<String> annotationClosure(String root) {
+        Set<String> closure = DiscoveryContext.getInstance(project).annotationClosure(root).stream()
+                .map(PsiClass::getQualifiedName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(HashSet::new));
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Entry entry : classes.values()) {
+                if (entry.indexedClass().isAnnotationType() &&
+                        !closure.contains(entry.indexedClass().getQualifiedName()) &&
+                        hasAnnotation(entry, closure)) {
+                    closure.add(entry.indexedClass().getQualifiedName());
+                    added = true;
+                }
+            }
+        }
+        return closure;
+    }
+
+    private boolean isRepository(Entry entry, Set<Entry> visited) {
+        for (String superName : entry.indexedClass().getSupers()) {
+            Entry superEntry = resolveClass(entry, superName);
+            if (superEntry != null) {
+                if (visited.add(superEntry) && isRepository(superEntry, visited)) {
+                    return true;
+                }
+            } else if (entry.file().candidates(superName).stream()
+                    .anyMatch(candidate -> candidate.startsWith("org.springframework.data.") && candidate.endsWith("Repository"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addReference(GraphBuilder nodes, Entry fromEntry, int to) {
+        CodeflowFileData.IndexedClass fromClass = fromEntry.indexedClass();
+        int from = nodes.id(fromClass.getQualifiedName());
+        if (from < 0) {
+            boolean test = fromEntry.test() || CodeflowAnalysis.hasTestLikeName(fromClass.getName());
+            from = nodes.intern(fromClass.getQualifiedName(), fromClass.getName(), fromEntry.fileUrl(), test ? NodeFlags.TEST : 0);
+            if (!test) {
+                addInheritance(nodes, fromEntry, from);
+            }
+        }
+        nodes.addReference(from, to);
+    }
+
+    private void addInheritance(GraphBuilder nodes, Entry entry, int id) {
+        entry.indexedClass().getSupers().stream()
+                .map(superName -> resolveClass(entry, superName))
+                .filter(Objects::nonNull)
+                .mapToInt(superEntry -> nodes.id(superEntry.indexedClass().getQualifiedName()))
+                .filter(superId -> superId >= 0)
+                .forEach(superId -> nodes.addInheritance(id, superId));
+    }
+
+    private boolean hasAnnotation(Entry entry, Set<String> annotations) {
+        return entry.indexedClass().getAnnotations().stream()
+                .anyMatch(annotation -> resolvesTo(entry, annotation, annotations));
+    }
+
+    /**
+     * @return the flags {@code rules} give the class of {@code entry}; supertype rules only see its direct supertypes
+     */
+    private static int classify(ClassificationRules rules, Entry entry) {
+        CodeflowFileData.IndexedClass indexedClass = entry.indexedClass();
+        List<String> annotations = indexedClass.getAnnotations().stream()
+                .flatMap(annotation -> entry.file().candidates(annotation).stream())
+                .toList();
+        List<String> supertypes = indexedClass.getSupers().stream()
+                .flatMap(superName -> entry.file().candidates(superName).stream())
+                .toList();
+        return rules.flags(annotations, supertypes, indexedClass.getName());
+    }
+
+    private boolean resolvesTo(Entry entry, String name, Set<String> qualifiedNames) {
+        return entry.file().candidates(name).stream().anyMatch(qualifiedNames::contains);
+    }
+
+    private Entry resolveClass(Entry entry, String name) {
+        return entry.file().candidates(name).stream()
+                .map(classes::get)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,277 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic layered (Sugiyama style) layout. References point from left to right: entry points are placed in the
+ * first layer, repositories and clients in the last one and every other class one layer right of the rightmost class
+ * referencing it. Cycles are broken by ignoring the back edges of a depth first search, the order within the layers
+ * is then improved by a few barycenter sweeps. Ties are always broken by the node keys, so an unchanged graph gets the
+ * same picture on every run.
+ */
+public class LayeredLayout {
+
+    public static final int LEFT = -1;
+    public static final int MIDDLE = 0;
+    public static final int RIGHT = 1;
+
+    private static final float LAYER_GAP = 8;
+    private static final int SWEEPS = 4;
+
+    private final String[] keys;
+    private final int[] sides;
+    private final IntArrayList[] successors;
+    private final IntArrayList[] predecessors;
+
+    public LayeredLayout(int size) {
+        this.keys = new String[size];
+        this.sides = new int[size];
+        this.successors = new IntArrayList[size];
+        this.predecessors = new IntArrayList[size];
+    }
+
+    /**
+     * @return the layout of the classes of {@code graph} accepted by {@code visible}
+     */
+    public static GraphLayout of(CodeflowGraph graph, IntPredicate visible) {
+        LayeredLayout layout = new LayeredLayout(graph.size());
+        for (int id = 0; id < graph.size(); id++) {
+            if (visible.test(id)) {
+                layout.setNode(id, graph.qualifiedName(id), side(graph.flags(id)));
+            }
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            int to = id;
+            graph.forEachReferencedFrom(to, from -> layout.addEdge(from, to));
+        }
+        return layout.compute();
+    }
+
+    /**
+     * @return the side classes with {@code flags} are pinned to: entry points left, repositories and clients right
+     */
+    public static int side(int flags) {
+        if (NodeFlags.has(flags, NodeFlags.CONTROLLER) || NodeFlags.has(flags, NodeFlags.PUBSUB)) {
+            return LEFT;
+        }
+        if (NodeFlags.has(flags, NodeFlags.REPOSITORY)) {
+            return RIGHT;
+        }
+        return MIDDLE;
+    }
+
+    /**
+     * Adds node {@code id} to the layout, nodes which are never added are not placed.
+     */
+    public void setNode(int id, String key, int side) {
+        keys[id] = key;
+        sides[id] = side;
+    }
+
+    /**
+     * Adds an edge between two nodes, ignored unless both are added.
+     */
+    public void addEdge(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (successors[from] == null) {
+            successors[from] = new IntArrayList(2);
+        }
+        if (predecessors[to] == null) {
+            predecessors[to] = new IntArrayList(2);
+        }
+        successors[from].add(to);
+        predecessors[to].add(from);
+    }
+
+    public GraphLayout compute() {
+        for (IntArrayList neighbours : successors) {
+            if (neighbours != null) {
+                neighbours.removeIf(to -> keys[to] == null);
+                neighbours.sort((first, second) -> keys[first].compareTo(keys[second]));
+            }
+        }
+        int[] byKey = IntStream.range(0, keys.length)
+                .filter(id -> keys[id] != null)
+                .boxed()
+                .sorted(Comparator.comparing(id -> keys[id]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] layers = assignLayers(byKey);
+        List<IntArrayList> ordered = orderLayers(byKey, layers);
+
+        float[] x = new float[keys.length];
+        float[] y = new float[keys.length];
+        Arrays.fill(x, Float.NaN);
+        Arrays.fill(y, Float.NaN);
+        for (int layer = 0; layer < ordered.size(); layer++) {
+            IntArrayList nodes = ordered.get(layer);
+            for (int position = 0; position < nodes.size(); position++) {
+                x[nodes.getInt(position)] = layer * LAYER_GAP;
+                y[nodes.getInt(position)] = (nodes.size() - 1) / 2f - position;
+            }
+        }
+        return new GraphLayout(x, y);
+    }
+
+    /**
+     * Longest path layering of the graph without its back edges. Edges into left pinned and out of right pinned
+     * nodes do not count, those nodes go to the first and last layer.
+     */
+    private int[] assignLayers(int[] byKey) {
+        IntArrayList[] forward = acyclicSuccessors(byKey);
+        int[] inDegree = new int[keys.length];
+        for (int node : byKey) {
+            if (forward[node] != null) {
+                forward[node].forEach(to -> inDegree[to]++);
+            }
+        }
+        int[] layers = new int[keys.length];
+        IntArrayList queue = new IntArrayList();
+        for (int node : byKey) {
+            if (inDegree[node] == 0) {
+                queue.add(node);
+            }
+        }
+        int maxLayer = 0;
+        for (int i = 0; i < queue.size(); i++) {
+            int node = queue.getInt(i);
+            if (sides[node] != RIGHT) {
+                maxLayer = Math.max(maxLayer, layers[node]);
+            }
+            if (forward[node] == null) {
+                continue;
+            }
+            for (int j = 0; j < forward[node].size(); j++) {
+                int to = forward[node].getInt(j);
+                layers[to] = Math.max(layers[to], layers[node] + 1);
+                if (--inDegree[to] == 0) {
+                    queue.add(to);
+                }
+            }
+        }
+        for (int node : byKey) {
+            if (sides[node] == RIGHT) {
+                layers[node] = maxLayer + 1;
+            }
+        }
+        return layers;
+    }
+
+    private IntArrayList[] acyclicSuccessors(int[] byKey) {
+        IntArrayList[] forward = new IntArrayList[keys.length];
+        byte[] state = new byte[keys.length];
+        IntArrayList stack = new IntArrayList();
+        IntArrayList nextEdge = new IntArrayList();
+        for (int root : byKey) {
+            if (state[root] != 0) {
+                continue;
+            }
+            state[root] = 1;
+            stack.add(root);
+            nextEdge.add(0);
+            while (!stack.isEmpty()) {
+                int top = stack.size() - 1;
+                int node = stack.getInt(top);
+                int edge = nextEdge.getInt(top);
+                if (successors[node] == null || edge >= successors[node].size()) {
+                    state[node] = 2;
+                    stack.removeInt(top);
+                    nextEdge.removeInt(top);
+                    continue;
+                }
+                nextEdge.set(top, edge + 1);
+                int to = successors[node].getInt(edge);
+                if (keys[to] == null || sides[to] == LEFT || sides[node] == RIGHT || state[to] == 1) {
+                    continue;
+                }
+                if (forward[node] == null) {
+                    forward[node] = new IntArrayList(2);
+                }
+                forward[node].add(to);
+                if (state[to] == 0) {
+                    state[to] = 1;
+                    stack.add(to);
+                    nextEdge.add(0);
+                }
+            }
+        }
+        return forward;
+    }
+
+    /**
+     * Orders every layer by the average position of the node's neighbours in the previous layers, then by the
+     * following layers, alternating for a fixed number of sweeps.
+     */
+    private List<IntArrayList> orderLayers(int[] byKey, int[] layers) {
+        List<IntArrayList> ordered = new ArrayList<>();
+        for (int node : byKey) {
+            while (ordered.size() <= layers[node]) {
+                ordered.add(new IntArrayList());
+            }
+            ordered.get(layers[node]).add(node);
+        }
+        float[] positions = new float[keys.length];
+        updatePositions(ordered, positions);
+        float[] barycenters = new float[keys.length];
+        for (int sweep = 0; sweep < SWEEPS; sweep++) {
+            boolean down = sweep % 2 == 0;
+            for (int i = 1; i < ordered.size(); i++) {
+                int layer = down ? i : ordered.size() - 1 - i;
+                IntArrayList nodes = ordered.get(layer);
+                for (int j = 0; j < nodes.size(); j++) {
+                    int node = nodes.getInt(j);
+                    barycenters[node] = barycenter(node, layers, positions, down);
+                }
+                Integer[] boxed = nodes.intStream().boxed().toArray(Integer[]::new);
+                Arrays.sort(boxed, Comparator.<Integer>comparingDouble(node -> barycenters[node])
+                        .thenComparing(node -> keys[node]));
+                nodes.clear();
+                for (Integer node : boxed) {
+                    nodes.add(node.intValue());
+                }
+                for (int j = 0; j < nodes.size(); j++) {
+                    positions[nodes.getInt(j)] = j;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private float barycenter(int node, int[] layers, float[] positions, boolean fromPrevious) {
+        float sum = 0;
+        int count = 0;
+        for (IntArrayList neighbours : new IntArrayList[]{predecessors[node], successors[node]}) {
+            if (neighbours == null) {
+                continue;
+            }
+            for (int i = 0; i < neighbours.size(); i++) {
+                int neighbour = neighbours.getInt(i);
+                if (keys[neighbour] == null) {
+                    continue;
+                }
+                if (fromPrevious ? layers[neighbour] < layers[node] : layers[neighbour] > layers[node]) {
+                    sum += positions[neighbour];
+                    count++;
+                }
+            }
+        }
+        return count == 0 ? positions[node] : sum / count;
+    }
+
+    private static void updatePositions(List<IntArrayList> ordered, float[] positions) {
+        for (IntArrayList nodes : ordered) {
+            for (int j = 0; j < nodes.size(); j++) {
+                positions[nodes.getInt(j)] = j;
+            }
+        }
+    }
+}
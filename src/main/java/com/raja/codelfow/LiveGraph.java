@@ -0,0 +1,206 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.*;
+import com.intellij.util.Alarm;
+import org.graphstream.graph.Graph;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an open codeflow view in sync with the edits in the project. The Java files changed by PSI events are
+ * collected and, once nothing was edited for {@link #DEBOUNCE_MILLIS}, only the classes declared in them are
+ * analysed again, see {@link CodeflowAnalysis#reanalyse}. The difference is applied to the open graph in place, so
+ * the classes which are still there keep their position and the camera keeps its zoom and position. The complete
+ * graph is analysed again and a simplified view is simplified again from it, and it becomes the
+ * {@link CodeflowService#getLastDrawn() last drawn} graph. An update cancelled by a write action is tried again a few
+ * times, a failed one is logged and its edits are only analysed again with later edits of the same files. Beans,
+ * repositories and channels are only discovered again by the next full draw.
+ */
+class LiveGraph implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(LiveGraph.class);
+    private static final int DEBOUNCE_MILLIS = 500;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final Project project;
+    private final Graph graph;
+    private final CodeflowAnalysis analysis;
+    private final String settingsKey;
+    private final Alarm alarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    private final Object updateLock = new Object();
+    private final Set<String> changedFiles = new HashSet<>();
+    private volatile CodeflowGraph nodes;
+    private FlowHighlighter highlighter;
+    private int attempts;
+    private volatile boolean disposed;
+
+    /**
+     * @param analysis the analysis {@code nodes} are the result of
+     * @param drawn    the graph drawn for {@code nodes}, see {@link GraphSimplification#drawn}
+     */
+    LiveGraph(Project project, Graph graph, CodeflowGraph nodes, CodeflowGraph drawn, ReachabilityIndex reachability,
+              CodeflowAnalysis analysis) {
+        this.project = project;
+        this.graph = graph;
+        this.nodes = nodes;
+        this.analysis = analysis;
+        this.settingsKey = CodeflowSettings.getInstance(project).graphKey();
+        this.highlighter = new FlowHighlighter(graph, drawn, reachability, project);
+        Disposer.register(CodeflowService.getInstance(project), this);
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void beforeChildRemoval(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getChild());
+            }
+
+            @Override
+            public void beforePropertyChange(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getElement());
+            }
+
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getChild());
+                changed(event.getFile());
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getFile());
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getFile());
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getFile());
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getFile());
+            }
+
+            @Override
+            public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+                changed(event.getElement());
+            }
+        }, this);
+    }
+
+    /**
+     * @return the highlighter of the graph as it is drawn now, must be called on the EDT
+     */
+    FlowHighlighter highlighter() {
+        return highlighter;
+    }
+
+    private void changed(PsiElement element) {
+        if (!(element instanceof PsiJavaFile file) || file.getVirtualFile() == null) {
+            return;
+        }
+        synchronized (changedFiles) {
+            changedFiles.add(file.getVirtualFile().getUrl());
+        }
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::update, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Analyses the changed files and applies the result to the open graph. Updates run one after another, each one
+     * starts from the graph the previous one drew.
+     */
+    private void update() {
+        synchronized (updateLock) {
+            Set<String> files;
+            synchronized (changedFiles) {
+                files = new HashSet<>(changedFiles);
+                changedFiles.clear();
+            }
+            if (files.isEmpty() || disposed) {
+                return;
+            }
+            CodeflowGraph current = nodes;
+            Update updated;
+            try {
+                updated = ReadAction.nonBlocking(() -> {
+                            CodeflowGraph reanalysed = analysis.reanalyse(current, files, componentAnnotations());
+                            return new Update(reanalysed, GraphSimplification.drawn(reanalysed, project),
+                                    ReachabilityIndex.of(reanalysed));
+                        })
+                        .inSmartMode(project)
+                        .expireWith(this)
+                        .executeSynchronously();
+            } catch (ProcessCanceledException e) {
+                retry(files);
+                return;
+            } catch (RuntimeException e) {
+                attempts = 0;
+                LOG.error("Live update of " + files.size() + " files failed", e);
+                return;
+            }
+            attempts = 0;
+            nodes = updated.nodes();
+            ApplicationManager.getApplication().invokeAndWait(() -> {
+                if (!disposed) {
+                    highlighter.clear();
+                    CodeflowViewer.update(graph, updated.drawn(), project);
+                    highlighter = new FlowHighlighter(graph, updated.drawn(), updated.reachability(), project);
+                    CodeflowService.getInstance(project).drawn(new CachedGraph(settingsKey, Collections.emptyMap(),
+                            updated.nodes(), CodeflowViewer.layoutOf(graph, updated.nodes())));
+                }
+            }, ModalityState.defaultModalityState());
+        }
+    }
+
+    /**
+     * Puts back the files of an update which was cancelled, they are analysed by the next one. After
+     * {@link #MAX_ATTEMPTS} cancelled updates in a row they wait for the next edit.
+     */
+    private void retry(Set<String> files) {
+        synchronized (changedFiles) {
+            changedFiles.addAll(files);
+        }
+        if (!disposed && ++attempts < MAX_ATTEMPTS) {
+            alarm.cancelAllRequests();
+            alarm.addRequest(this::update, DEBOUNCE_MILLIS);
+        } else {
+            attempts = 0;
+        }
+    }
+
+    /**
+     * @return the qualified names of the component annotations, memoized by the {@link DiscoveryContext} until the
+     * next PSI change, so annotations added while the view is open are found
+     */
+    private Set<String> componentAnnotations() {
+        return DiscoveryContext.getInstance(project).annotationClosure(DiscoveryContext.COMPONENT).stream()
+                .map(PsiClass::getQualifiedName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private record Update(CodeflowGraph nodes, CodeflowGraph drawn, ReachabilityIndex reachability) {
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Draws the codeflow of the modules selected in the project view, or of the modules containing the selected files,
+ * without searching any other module.
+ */
+public class ModuleAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        if (project == null) {
+            return;
+        }
+        Set<Module> modules = selectedModules(e, project);
+        if (!modules.isEmpty()) {
+            CodeflowService.getInstance(project).draw(modules);
+        }
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        e.getPresentation().setEnabledAndVisible(project != null && !selectedModules(e, project).isEmpty());
+    }
+
+    private static Set<Module> selectedModules(AnActionEvent e, Project project) {
+        Module[] modules = e.getData(LangDataKeys.MODULE_CONTEXT_ARRAY);
+        if (modules != null && modules.length > 0) {
+            return new LinkedHashSet<>(Arrays.asList(modules));
+        }
+        VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (files == null) {
+            return Set.of();
+        }
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        Set<Module> fileModules = new LinkedHashSet<>();
+        Arrays.stream(files)
+                .map(fileIndex::getModuleForFile)
+                .filter(Objects::nonNull)
+                .forEach(fileModules::add);
+        return fileModules;
+    }
+}
@@ -0,0 +1,93 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * The part of the reference search owned by one IntelliJ {@link Module}: the components declared in the module.
+ * A class can only reference them from the module itself or from a module depending on it, so the references of a
+ * shard are searched in that scope only instead of the whole project. Shards are searched independently, every shard
+ * collects its own results, and they are merged into one graph once all searches completed; references between
+ * modules are found by the shard of the referenced component.
+ */
+class ModuleShard {
+
+    /**
+     * The module, {@code null} for the classes outside of any module.
+     */
+    @Getter
+    private final Module module;
+    @Getter
+    private final GlobalSearchScope referenceScope;
+    @Getter
+    private final List<PsiClassImpl> components = new ArrayList<>();
+    private final Map<PsiClassImpl, List<PsiClass>> referencingClasses = new ConcurrentHashMap<>();
+
+    private ModuleShard(Module module, GlobalSearchScope referenceScope) {
+        this.module = module;
+        this.referenceScope = referenceScope;
+    }
+
+    /**
+     * Splits {@code components} by the module declaring them, shards and their components are sorted by name so
+     * merging them always interns the classes in the same order.
+     *
+     * @param scope the scope of the analysis, references are only searched inside of it
+     */
+    static List<ModuleShard> split(Project project, Collection<PsiClassImpl> components, GlobalSearchScope scope) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        Map<Module, ModuleShard> shards = new HashMap<>();
+        components.forEach(clazz -> {
+            VirtualFile file = clazz.getContainingFile().getVirtualFile();
+            Module module = file == null ? null : fileIndex.getModuleForFile(file);
+            shards.computeIfAbsent(module, key -> new ModuleShard(key, key == null
+                            ? scope
+                            : GlobalSearchScope.moduleWithDependentsScope(key).intersectWith(scope)))
+                    .components.add(clazz);
+        });
+        shards.values().forEach(shard -> shard.components.sort(Comparator.comparing(CodeflowAnalysis::key)));
+        return shards.values().stream()
+                .sorted(Comparator.comparing(ModuleShard::getName))
+                .toList();
+    }
+
+    /**
+     * @return the sources of {@code modules}, including their tests
+     */
+    static GlobalSearchScope modulesScope(Collection<Module> modules) {
+        return GlobalSearchScope.union(modules.stream()
+                .map(Module::getModuleScope)
+                .toArray(GlobalSearchScope[]::new));
+    }
+
+    String getName() {
+        return module == null ? "" : module.getName();
+    }
+
+    void found(PsiClassImpl component, List<PsiClass> referencingClasses) {
+        this.referencingClasses.put(component, referencingClasses);
+    }
+
+    /**
+     * @return the classes found referencing {@code component}, empty if it was not searched yet
+     */
+    List<PsiClass> referencingClasses(PsiClassImpl component) {
+        return referencingClasses.getOrDefault(component, emptyList());
+    }
+}
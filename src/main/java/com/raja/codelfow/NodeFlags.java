@@ -0,0 +1,68 @@
+package com.raja.codelfow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bits of a node's flags in {@link CodeflowGraph}.
+ */
+public final class NodeFlags {
+
+    public static final int COMPONENT = 1;
+    public static final int TEST = 1 << 1;
+    public static final int CONTROLLER = 1 << 2;
+    public static final int CONFIG = 1 << 3;
+    public static final int INTERFACE_IMPL = 1 << 4;
+    public static final int INTERFACE = 1 << 5;
+    public static final int REPOSITORY = 1 << 6;
+    public static final int PUBSUB = 1 << 7;
+    /**
+     * A message channel rather than a class, see {@link ChannelTopology}.
+     */
+    public static final int CHANNEL = 1 << 8;
+    /**
+     * A class in a dependency cycle, only set on the graphs drawn by {@link GraphSimplification}.
+     */
+    public static final int CYCLE = 1 << 9;
+
+    private static final int[] FLAGS = {COMPONENT, TEST, CONTROLLER, CONFIG, INTERFACE_IMPL, INTERFACE, REPOSITORY, PUBSUB, CHANNEL, CYCLE};
+    private static final String[] NAMES = {"component", "test", "controller", "config", "interfaceImpl", "interface", "repository", "pubsub", "channel", "cycle"};
+
+    private NodeFlags() {
+    }
+
+    public static boolean has(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * @return the names of the bits set in {@code flags}
+     */
+    public static List<String> names(int flags) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < FLAGS.length; i++) {
+            if (has(flags, FLAGS[i])) {
+                names.add(NAMES[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @param names comma separated names as returned by {@link #names}, unknown names are ignored
+     */
+    public static int parse(String names) {
+        int flags = 0;
+        if (names == null) {
+            return flags;
+        }
+        for (String name : names.split(",")) {
+            for (int i = 0; i < NAMES.length; i++) {
+                if (NAMES[i].equals(name.trim())) {
+                    flags |= FLAGS[i];
+                }
+            }
+        }
+        return flags;
+    }
+}
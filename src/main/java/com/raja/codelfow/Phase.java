@@ -0,0 +1,30 @@
+package com.raja.codelfow;
+
+import lombok.Getter;
+
+@Getter
+public enum Phase {
+    COMPONENTS("Collecting components"),
+    BEANS("Collecting beans"),
+    REPOSITORIES("Collecting repositories"),
+    FEIGN("Collecting Feign clients"),
+    PUBSUB("Collecting pubsub publishers and consumers"),
+    REFERENCES("Resolving references");
+
+    private final String text;
+
+    Phase(String text) {
+        this.text = text;
+    }
+
+    public double startFraction() {
+        return (double) ordinal() / values().length;
+    }
+
+    public double fraction(int done, int total) {
+        if (total == 0) {
+            return startFraction();
+        }
+        return startFraction() + ((double) done / total) / values().length;
+    }
+}
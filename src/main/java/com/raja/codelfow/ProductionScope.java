@@ -0,0 +1,79 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.DelegatingGlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * The project's production files: project content outside test source roots and outside the
+ * {@link CodeflowSettings#getTestPathPatterns() configured test path patterns}.
+ */
+public class ProductionScope extends DelegatingGlobalSearchScope {
+
+    private final ProjectFileIndex fileIndex;
+    private final List<String> testPathPatterns;
+    private final List<Pattern> testPaths;
+
+    private ProductionScope(Project project, List<String> testPathPatterns) {
+        super(GlobalSearchScope.projectScope(project));
+        this.fileIndex = ProjectFileIndex.getInstance(project);
+        this.testPathPatterns = List.copyOf(testPathPatterns);
+        this.testPaths = testPathPatterns.stream()
+                .map(pattern -> Pattern.compile(FileUtil.convertAntToRegexp(pattern)))
+                .toList();
+    }
+
+    public static ProductionScope of(Project project) {
+        return new ProductionScope(project, CodeflowSettings.getInstance(project).getTestPathPatterns());
+    }
+
+    /**
+     * @return the scope every codeflow search runs in: the production files, or the whole project when tests are
+     * {@link CodeflowSettings#isIncludeTests() included}
+     */
+    public static GlobalSearchScope forAnalysis(Project project) {
+        if (CodeflowSettings.getInstance(project).isIncludeTests()) {
+            return GlobalSearchScope.projectScope(project);
+        }
+        return of(project);
+    }
+
+    @Override
+    public boolean contains(@NotNull VirtualFile file) {
+        return super.contains(file) && !isTestFile(file);
+    }
+
+    public boolean isTestFile(VirtualFile file) {
+        if (file == null) {
+            return false;
+        }
+        if (fileIndex.isInTestSourceContent(file)) {
+            return true;
+        }
+        String path = file.getPath();
+        return testPaths.stream().anyMatch(pattern -> pattern.matcher(path).matches());
+    }
+
+    @Override
+    public @NotNull String getDisplayName() {
+        return "Codeflow production files";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && testPathPatterns.equals(((ProductionScope) o).testPathPatterns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), testPathPatterns);
+    }
+}
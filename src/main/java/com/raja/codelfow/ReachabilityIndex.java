@@ -0,0 +1,471 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Answers "where does data starting in this class end up" on a {@link CodeflowGraph}. Data flows along references,
+ * from the referencing class to the referenced one, except for inheritance: a call on an interface or super class
+ * ends up in its implementations, so those edges are followed from the parent to the child.
+ * <p>
+ * The strongly connected components of the flow graph are numbered in reverse topological order, every component
+ * only reaches components with a lower number, and the transitive closure of the condensed graph is precomputed as
+ * one bitset per component. Reachability queries are then a bit test, or a scan over the components for the
+ * classes reaching a class. Graphs with more than {@link #MAX_CLOSURE_COMPONENTS} components fall back to searching
+ * the graph for every query.
+ */
+public class ReachabilityIndex {
+
+    /**
+     * Bounds the closure to 32 MB.
+     */
+    static final int MAX_CLOSURE_COMPONENTS = 16_384;
+
+    /**
+     * Receives edges of the flow graph.
+     */
+    public interface EdgeConsumer {
+        void accept(int from, int to);
+    }
+
+    private final int size;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] component;
+    private final int componentCount;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final long[][] closure;
+
+    private ReachabilityIndex(int size, IntArrayList from, IntArrayList to) {
+        this.size = size;
+        this.successorOffsets = new int[size + 1];
+        this.successors = new int[from.size()];
+        csr(from, to, successorOffsets, successors);
+        this.predecessorOffsets = new int[size + 1];
+        this.predecessors = new int[to.size()];
+        csr(to, from, predecessorOffsets, predecessors);
+
+        this.component = components();
+        this.componentCount = Arrays.stream(component).max().orElse(-1) + 1;
+        this.memberOffsets = new int[componentCount + 1];
+        this.members = new int[size];
+        IntArrayList nodes = new IntArrayList(size);
+        for (int node = 0; node < size; node++) {
+            nodes.add(node);
+        }
+        csr(IntArrayList.wrap(component.clone()), nodes, memberOffsets, members);
+        this.closure = componentCount <= MAX_CLOSURE_COMPONENTS ? closure() : null;
+    }
+
+    public static ReachabilityIndex of(CodeflowGraph graph) {
+        return of(graph, id -> true);
+    }
+
+    /**
+     * @param included the classes whose references count, the others are left without any
+     */
+    public static ReachabilityIndex of(CodeflowGraph graph, IntPredicate included) {
+        IntArrayList from = new IntArrayList(graph.edgeCount());
+        IntArrayList to = new IntArrayList(graph.edgeCount());
+        for (int id = 0; id < graph.size(); id++) {
+            int referenced = id;
+            if (!included.test(referenced)) {
+                continue;
+            }
+            graph.forEachReferencedFrom(referenced, referencing -> {
+                if (!included.test(referencing)) {
+                    return;
+                }
+                if (graph.inheritsFrom(referencing, referenced)) {
+                    from.add(referenced);
+                    to.add(referencing);
+                } else {
+                    from.add(referencing);
+                    to.add(referenced);
+                }
+            });
+        }
+        return new ReachabilityIndex(graph.size(), from, to);
+    }
+
+    /**
+     * @return whether data starting in {@code from} can end up in {@code to}; a class always reaches itself
+     */
+    public boolean reaches(int from, int to) {
+        int fromComponent = component[from];
+        int toComponent = component[to];
+        if (fromComponent == toComponent) {
+            return true;
+        }
+        if (toComponent > fromComponent) {
+            return false;
+        }
+        if (closure != null) {
+            return has(closure[fromComponent], toComponent);
+        }
+        return search(from, successorOffsets, successors).get(to);
+    }
+
+    /**
+     * @return the classes data starting in {@code from} can end up in, including {@code from}
+     */
+    public BitSet reachableFrom(int from) {
+        if (closure == null) {
+            return search(from, successorOffsets, successors);
+        }
+        BitSet reachable = new BitSet(size);
+        long[] reached = closure[component[from]];
+        for (int word = 0; word < reached.length; word++) {
+            long bits = reached[word];
+            while (bits != 0) {
+                addMembers(reachable, word * 64 + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @return the classes whose data can end up in {@code to}, including {@code to}
+     */
+    public BitSet reaching(int to) {
+        if (closure == null) {
+            return search(to, predecessorOffsets, predecessors);
+        }
+        BitSet reaching = new BitSet(size);
+        int toComponent = component[to];
+        for (int c = toComponent; c < componentCount; c++) {
+            if (has(closure[c], toComponent)) {
+                addMembers(reaching, c);
+            }
+        }
+        return reaching;
+    }
+
+    /**
+     * @return the classes on any path from {@code from} to {@code to}, empty if there is none
+     */
+    public BitSet between(int from, int to) {
+        if (!reaches(from, to)) {
+            return new BitSet();
+        }
+        BitSet between = reachableFrom(from);
+        between.and(reaching(to));
+        return between;
+    }
+
+    /**
+     * @return the classes on a shortest path from {@code from} to {@code to}, in flow order, empty if there is none
+     */
+    public int[] shortestPath(int from, int to) {
+        if (!reaches(from, to)) {
+            return new int[0];
+        }
+        int[] parent = new int[size];
+        Arrays.fill(parent, -1);
+        parent[from] = from;
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail && parent[to] == -1) {
+            int node = queue[head++];
+            for (int i = successorOffsets[node]; i < successorOffsets[node + 1]; i++) {
+                int next = successors[i];
+                if (parent[next] == -1 && reaches(next, to)) {
+                    parent[next] = node;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        IntArrayList path = new IntArrayList();
+        for (int node = to; node != from; node = parent[node]) {
+            path.add(node);
+        }
+        path.add(from);
+        int[] result = path.toIntArray();
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            int swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    /**
+     * @return up to {@code limit} paths from {@code from} to {@code to} which visit no class twice, in flow order;
+     * only steps to classes still reaching {@code to} are tried
+     */
+    public List<int[]> paths(int from, int to, int limit) {
+        List<int[]> paths = new ArrayList<>();
+        if (limit <= 0 || !reaches(from, to)) {
+            return paths;
+        }
+        if (from == to) {
+            paths.add(new int[]{from});
+            return paths;
+        }
+        boolean[] onPath = new boolean[size];
+        int[] path = new int[size];
+        int[] edge = new int[size];
+        int depth = 0;
+        path[0] = from;
+        edge[0] = successorOffsets[from];
+        onPath[from] = true;
+        while (depth >= 0 && paths.size() < limit) {
+            int node = path[depth];
+            if (edge[depth] == successorOffsets[node + 1]) {
+                onPath[node] = false;
+                depth--;
+                continue;
+            }
+            int next = successors[edge[depth]++];
+            if (next == to) {
+                int[] found = Arrays.copyOf(path, depth + 2);
+                found[depth + 1] = to;
+                paths.add(found);
+            } else if (!onPath[next] && reaches(next, to)) {
+                depth++;
+                path[depth] = next;
+                edge[depth] = successorOffsets[next];
+                onPath[next] = true;
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return the strongly connected component of {@code id}, the classes of a component with more than one class
+     * depend on each other in a cycle
+     */
+    public int component(int id) {
+        return component[id];
+    }
+
+    public int componentSize(int c) {
+        return memberOffsets[c + 1] - memberOffsets[c];
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Selects edges of the flow graph which reach just like all of them do. Within a component these are the edges
+     * of a tree from its first class to every other class and of a tree from every other class back to it, at most
+     * two edges per class. Between components one edge is kept per edge of the transitive reduction of the condensed
+     * graph; without a {@link #closure} only the duplicate edges between two components are dropped.
+     *
+     * @param kept called with every selected edge
+     */
+    public void forEachReducedEdge(EdgeConsumer kept) {
+        int[] reached = new int[size];
+        Arrays.fill(reached, -1);
+        int[] queue = new int[size];
+        for (int c = 0; c < componentCount; c++) {
+            if (componentSize(c) > 1) {
+                int root = members[memberOffsets[c]];
+                spanningTree(root, successorOffsets, successors, reached, queue, 2 * c, kept);
+                spanningTree(root, predecessorOffsets, predecessors, reached, queue, 2 * c + 1,
+                        (node, predecessor) -> kept.accept(predecessor, node));
+            }
+        }
+
+        int words = (componentCount + 63) / 64;
+        long[] covered = new long[words];
+        int[] edgeFrom = new int[componentCount];
+        int[] edgeTo = new int[componentCount];
+        int[] successorComponents = new int[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            int count = 0;
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int node = members[i];
+                for (int j = successorOffsets[node]; j < successorOffsets[node + 1]; j++) {
+                    int next = component[successors[j]];
+                    if (next != c && !has(covered, next)) {
+                        covered[next >>> 6] |= 1L << next;
+                        successorComponents[count++] = next;
+                        edgeFrom[next] = node;
+                        edgeTo[next] = successors[j];
+                    }
+                }
+            }
+            Arrays.fill(covered, 0);
+            Arrays.sort(successorComponents, 0, count);
+            for (int i = count - 1; i >= 0; i--) {
+                int next = successorComponents[i];
+                if (closure == null) {
+                    kept.accept(edgeFrom[next], edgeTo[next]);
+                } else if (!has(covered, next)) {
+                    kept.accept(edgeFrom[next], edgeTo[next]);
+                    long[] nextReached = closure[next];
+                    for (int word = 0; word < words; word++) {
+                        covered[word] |= nextReached[word];
+                    }
+                }
+            }
+            Arrays.fill(covered, 0);
+        }
+    }
+
+    /**
+     * Walks the component of {@code root} breadth first along {@code neighbours} and reports the edge
+     * {@code node -> neighbour} every class is first reached through.
+     *
+     * @param mark the value marking the classes reached by this walk in {@code reached}
+     */
+    private void spanningTree(int root, int[] offsets, int[] neighbours, int[] reached, int[] queue, int mark,
+                              EdgeConsumer edge) {
+        int c = component[root];
+        int head = 0;
+        int tail = 0;
+        reached[root] = mark;
+        queue[tail++] = root;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = neighbours[i];
+                if (component[next] == c && reached[next] != mark) {
+                    reached[next] = mark;
+                    queue[tail++] = next;
+                    edge.accept(node, next);
+                }
+            }
+        }
+    }
+
+    private void addMembers(BitSet nodes, int c) {
+        for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+            nodes.set(members[i]);
+        }
+    }
+
+    private BitSet search(int start, int[] offsets, int[] neighbours) {
+        BitSet visited = new BitSet(size);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        visited.set(start);
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = neighbours[i];
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Tarjan's algorithm without recursion. A component is numbered once everything it reaches is numbered, so
+     * successors of a component always have a lower number.
+     */
+    private int[] components() {
+        int[] component = new int[size];
+        Arrays.fill(component, -1);
+        int[] index = new int[size];
+        Arrays.fill(index, -1);
+        int[] low = new int[size];
+        int[] stack = new int[size];
+        int stackSize = 0;
+        int[] callNode = new int[size];
+        int[] callEdge = new int[size];
+        int counter = 0;
+        int components = 0;
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = successorOffsets[root];
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            while (depth >= 0) {
+                int node = callNode[depth];
+                if (callEdge[depth] < successorOffsets[node + 1]) {
+                    int next = successors[callEdge[depth]++];
+                    if (index[next] == -1) {
+                        index[next] = low[next] = counter++;
+                        stack[stackSize++] = next;
+                        depth++;
+                        callNode[depth] = next;
+                        callEdge[depth] = successorOffsets[next];
+                    } else if (component[next] == -1) {
+                        low[node] = Math.min(low[node], index[next]);
+                    }
+                    continue;
+                }
+                if (low[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        component[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+            }
+        }
+        return component;
+    }
+
+    private long[][] closure() {
+        int words = (componentCount + 63) / 64;
+        long[][] closure = new long[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            long[] reached = new long[words];
+            reached[c >>> 6] |= 1L << c;
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int node = members[i];
+                for (int j = successorOffsets[node]; j < successorOffsets[node + 1]; j++) {
+                    int next = component[successors[j]];
+                    if (next != c && !has(reached, next)) {
+                        long[] nextReached = closure[next];
+                        for (int word = 0; word < words; word++) {
+                            reached[word] |= nextReached[word];
+                        }
+                    }
+                }
+            }
+            closure[c] = reached;
+        }
+        return closure;
+    }
+
+    private static boolean has(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    /**
+     * Fills {@code offsets} and {@code targets} with the edges {@code from[i] -> to[i]} as compressed sparse rows.
+     */
+    private static void csr(IntArrayList from, IntArrayList to, int[] offsets, int[] targets) {
+        for (int i = 0; i < from.size(); i++) {
+            offsets[from.getInt(i) + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < from.size(); i++) {
+            targets[next[from.getInt(i)]++] = to.getInt(i);
+        }
+    }
+}
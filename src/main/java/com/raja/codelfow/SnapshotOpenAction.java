@@ -0,0 +1,32 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Opens one or more codeflow snapshots, see {@link GraphSnapshot}. Available while the project is being indexed.
+ */
+public class SnapshotOpenAction extends AnAction implements DumbAware {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        if (project == null) {
+            return;
+        }
+        VirtualFile[] files = FileChooser.chooseFiles(FileChooserDescriptorFactory.createMultipleFilesNoJarsDescriptor()
+                        .withFileFilter(file -> GraphSnapshot.EXTENSION.equals(file.getExtension()))
+                        .withTitle("Open Codeflow Snapshot"),
+                project, null);
+        for (VirtualFile file : files) {
+            CodeflowService.getInstance(project).open(file.toNioPath());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.raja.codelfow;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the graph the last "Draw codeflow" showed to a {@link GraphSnapshot}, together with its layout.
+ */
+public class SnapshotSaveAction extends AnAction implements DumbAware {
+
+    private static final Logger LOG = Logger.getInstance(SnapshotSaveAction.class);
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        if (project == null) {
+            return;
+        }
+        CachedGraph graph = CodeflowService.getInstance(project).getLastDrawn();
+        if (graph == null) {
+            return;
+        }
+        VirtualFileWrapper target = FileChooserFactory.getInstance()
+                .createSaveFileDialog(new FileSaverDescriptor("Save Codeflow Snapshot", "", GraphSnapshot.EXTENSION), project)
+                .save(project.getName() + "." + GraphSnapshot.EXTENSION);
+        if (target == null) {
+            return;
+        }
+        Path file = target.getFile().toPath();
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                GraphSnapshot.write(graph.getGraph(), graph.getLayout(), GraphSnapshot.baseUrl(project), file);
+                notify(project, "Codeflow snapshot saved", graph.getGraph().size() + " classes written to " + file, NotificationType.INFORMATION);
+            } catch (IOException ex) {
+                LOG.warn("Could not write codeflow snapshot " + file, ex);
+                notify(project, "Could not save codeflow snapshot", ex.getMessage(), NotificationType.ERROR);
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        e.getPresentation().setEnabled(project != null && CodeflowService.getInstance(project).getLastDrawn() != null);
+    }
+
+    private static void notify(Project project, String title, String content, NotificationType type) {
+        NotificationGroupManager.getInstance().getNotificationGroup("Codeflow")
+                .createNotification(title, content, type)
+                .notify(project);
+    }
+}
@@ -0,0 +1,66 @@
+package com.raja.codelfow;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a {@link GraphSnapshot} and opens the viewer on it. Nothing is analysed, so it also runs while the project is
+ * being indexed; every snapshot opens in a window of its own, so snapshots of two commits can be compared side by
+ * side.
+ */
+public class SnapshotTask extends Task.Backgroundable {
+
+    private final Path file;
+    private CachedGraph graph;
+    private Clusters clusters;
+    private ReachabilityIndex reachability;
+    private IOException error;
+
+    SnapshotTask(@NotNull Project project, Path file) {
+        super(project, "Opening codeflow snapshot", true);
+        this.file = file;
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setText("Reading " + file.getFileName());
+        Project project = getProject();
+        CachedGraph read;
+        try {
+            read = GraphSnapshot.read(file, GraphSnapshot.baseUrl(project));
+        } catch (IOException e) {
+            error = e;
+            return;
+        }
+        graph = read.getLayout() != null ? read : read.withLayout(LayeredLayout.of(read.getGraph(),
+                id -> CodeflowViewer.isVisible(read.getGraph(), id, project)));
+        if (graph.getGraph().size() > CodeflowSettings.getInstance(project).getClusterThreshold()) {
+            clusters = ReadAction.compute(() -> Clusters.of(read.getGraph(), project));
+        } else {
+            reachability = ReachabilityIndex.of(graph.getGraph());
+        }
+    }
+
+    @Override
+    public void onSuccess() {
+        if (error != null) {
+            NotificationGroupManager.getInstance().getNotificationGroup("Codeflow")
+                    .createNotification("Could not open codeflow snapshot", error.getMessage(), NotificationType.ERROR)
+                    .notify(getProject());
+            return;
+        }
+        if (clusters != null) {
+            CodeflowViewer.displayClustered(graph.getGraph(), clusters, getProject());
+        } else {
+            CodeflowViewer.displayNodes(graph.getGraph(), graph.getLayout(), reachability, null, getProject());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.raja.codelfow;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.Alarm;
+import org.graphstream.graph.Graph;
+import org.graphstream.ui.swing_viewer.DefaultView;
+
+import javax.swing.SwingUtilities;
+import java.awt.Window;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A view of a graph which opens before the graph is complete. While the analysis runs it draws the partial graphs
+ * {@link CodeflowAnalysis#streamTo published} by it: they are coalesced, the EDT draws at most one every
+ * {@link #UPDATE_MILLIS}, always the latest, and lays it out again. Partial graphs larger than the
+ * {@link CodeflowSettings#getClusterThreshold() cluster threshold} are previewed as one cluster per package, taken
+ * from the qualified names so no file is looked up. {@link #finish} draws the final graph with its layout and
+ * {@link #finishClustered} its clusters; from then on the view behaves like any other, see
+ * {@link CodeflowViewer#displayNodes} and {@link CodeflowViewer#displayClustered}. Must be created and finished on
+ * the EDT.
+ */
+class StreamingView implements Disposable {
+
+    private static final int UPDATE_MILLIS = 250;
+
+    private final Project project;
+    private final Graph graph = CodeflowViewer.createGraph(false);
+    private final DefaultView view;
+    private final Alarm alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+    private final AtomicReference<CodeflowGraph> pending = new AtomicReference<>();
+    private volatile boolean finished;
+    private volatile boolean disposed;
+    private FlowHighlighter highlighter;
+    private LiveGraph live;
+    private ClusteredView clustered;
+    private boolean levelOfDetail;
+
+    StreamingView(Project project) {
+        this.project = project;
+        Disposer.register(CodeflowService.getInstance(project), this);
+        this.view = CodeflowViewer.display(graph, this::clicked, () -> Disposer.dispose(this));
+    }
+
+    private void clicked(String fullName, MouseEvent e) {
+        if (clustered != null) {
+            CodeflowViewer.clusterClicked(clustered, project, fullName, e);
+        } else if (!ClusteredView.isCluster(fullName)) {
+            CodeflowViewer.select(project, live != null ? live.highlighter() : highlighter, fullName, e);
+        }
+    }
+
+    /**
+     * Draws {@code partial} unless a later graph arrives first; may be called from any thread.
+     */
+    void publish(CodeflowGraph partial) {
+        if (finished || disposed) {
+            return;
+        }
+        if (pending.getAndSet(partial) == null) {
+            alarm.addRequest(this::drawPending, UPDATE_MILLIS);
+        }
+    }
+
+    private void drawPending() {
+        CodeflowGraph partial = pending.getAndSet(null);
+        if (partial == null || finished || disposed) {
+            return;
+        }
+        if (partial.size() > CodeflowSettings.getInstance(project).getClusterThreshold()) {
+            render(new ClusteredView(graph, partial, Clusters.byPackage(partial), id -> CodeflowViewer.isVisible(partial, id, project),
+                    CodeflowSettings.getInstance(project).isSimplifyEdges()));
+            return;
+        }
+        CodeflowViewer.update(graph, partial, project);
+        CodeflowViewer.place(graph, partial, LayeredLayout.of(partial, id -> CodeflowViewer.isVisible(partial, id, project)));
+    }
+
+    /**
+     * Draws the clusters of {@code clusters}, only drawing class labels when zoomed in from now on.
+     */
+    private void render(ClusteredView clusters) {
+        if (!levelOfDetail) {
+            levelOfDetail = true;
+            CodeflowViewer.style(graph, true);
+        }
+        clusters.render();
+    }
+
+    /**
+     * Draws the complete graph, {@link GraphSimplification simplified} if the settings ask for it. The view follows
+     * the edits in the project, see {@link LiveGraph}, when {@code analysis} is given.
+     *
+     * @param analysis the analysis {@code nodes} are the result of, {@code null} for a graph which does not follow
+     *                 edits
+     */
+    void finish(CodeflowGraph nodes, GraphLayout layout, ReachabilityIndex reachability, CodeflowAnalysis analysis) {
+        finished = true;
+        alarm.cancelAllRequests();
+        pending.set(null);
+        if (disposed) {
+            return;
+        }
+        CodeflowGraph drawn = nodes;
+        if (CodeflowSettings.getInstance(project).isSimplifyEdges()) {
+            GraphSimplification simplification = GraphSimplification.of(nodes,
+                    id -> CodeflowViewer.isVisible(nodes, id, project));
+            drawn = simplification.graph();
+            notify(simplification);
+        }
+        CodeflowViewer.update(graph, drawn, project);
+        CodeflowViewer.place(graph, drawn, layout);
+        if (analysis == null) {
+            highlighter = new FlowHighlighter(graph, drawn, reachability, project);
+        } else {
+            live = new LiveGraph(project, graph, nodes, drawn, reachability, analysis);
+        }
+    }
+
+    private void notify(GraphSimplification simplification) {
+        String content = "Drew " + simplification.keptCount() + " of " + simplification.referenceCount() + " references";
+        if (simplification.cycleCount() > 0) {
+            content += ", " + simplification.cycleClassCount() + " classes in " + simplification.cycleCount()
+                    + " dependency cycles";
+        }
+        NotificationGroupManager.getInstance().getNotificationGroup("Codeflow")
+                .createNotification("Codeflow simplified", content, NotificationType.INFORMATION)
+                .notify(project);
+    }
+
+    /**
+     * Draws the complete graph collapsed into {@code clusters}, see {@link ClusteredView}.
+     */
+    void finishClustered(CodeflowGraph nodes, Clusters clusters) {
+        finished = true;
+        alarm.cancelAllRequests();
+        pending.set(null);
+        if (disposed) {
+            return;
+        }
+        clustered = new ClusteredView(graph, nodes, clusters, id -> CodeflowViewer.isVisible(nodes, id, project),
+                CodeflowSettings.getInstance(project).isSimplifyEdges());
+        render(clustered);
+    }
+
+    /**
+     * Closes the window, for an analysis which was cancelled or failed.
+     */
+    void close() {
+        finished = true;
+        Window window = SwingUtilities.getWindowAncestor(view);
+        if (window != null) {
+            window.dispose();
+        } else {
+            Disposer.dispose(this);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        if (live != null) {
+            Disposer.dispose(live);
+        }
+    }
+}
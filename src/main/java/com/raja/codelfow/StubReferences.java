@@ -0,0 +1,172 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.cache.CacheManager;
+import com.intellij.psi.impl.source.PsiClassImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.UsageSearchContext;
+import com.intellij.psi.util.PsiUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Finds the classes referencing a component from the word index and the stubs of Java files only, without loading
+ * the AST of any file. A file is taken to reference a component when the simple name of the component occurs in its
+ * code and the file sees the component by that name: it is in the same package, or it imports the component, its
+ * top level class or its package, and no single type import shadows the name. Fully qualified references without
+ * an import are missed, and so are references from other languages.
+ * <p>
+ * What is read from a file is kept as qualified names only, so its PSI can be released as soon as it was read.
+ */
+class StubReferences {
+
+    /**
+     * A component to find the references of in {@code scope}.
+     */
+    record Target(String key, String name, String packageName, String topLevelKey, String fileUrl, GlobalSearchScope scope) {
+
+        static Target of(PsiClass component, GlobalSearchScope scope) {
+            PsiClass topLevelClass = PsiUtil.getTopLevelClass(component);
+            return new Target(CodeflowAnalysis.key(component),
+                    component.getName(),
+                    PsiUtil.getPackageName(component),
+                    CodeflowAnalysis.key(topLevelClass != null ? topLevelClass : component),
+                    CodeflowAnalysis.fileUrl(component),
+                    scope);
+        }
+    }
+
+    /**
+     * A top level class of a referencing file.
+     *
+     * @param superKeys the keys of the project classes it directly inherits from, empty for tests
+     */
+    record Referrer(String key, String name, String fileUrl, boolean test, List<String> superKeys) {
+    }
+
+    /**
+     * The names a Java file sees and the classes it declares.
+     *
+     * @param singleImports the qualified name of every class imported by a single type import, by its simple name
+     * @param staticImports the classes static members are imported from
+     * @param onDemandImports the packages and classes imported on demand
+     */
+    private record FileStub(String packageName,
+                            Map<String, String> singleImports,
+                            Set<String> staticImports,
+                            Set<String> onDemandImports,
+                            List<Referrer> classes) {
+
+        boolean sees(Target target) {
+            if (staticImports.contains(target.key()) || staticImports.contains(target.topLevelKey())) {
+                return true;
+            }
+            String imported = singleImports.get(target.name());
+            if (imported != null) {
+                return imported.equals(target.key());
+            }
+            if (!target.key().equals(target.topLevelKey())
+                    && target.topLevelKey().equals(singleImports.get(simpleName(target.topLevelKey())))) {
+                return true;
+            }
+            return packageName.equals(target.packageName())
+                    || onDemandImports.contains(target.packageName())
+                    || onDemandImports.contains(target.topLevelKey());
+        }
+    }
+
+    private static final FileStub NOT_JAVA = new FileStub("", Map.of(), Set.of(), Set.of(), List.of());
+
+    private final Project project;
+    private final AnalysisMetrics metrics;
+    private final Predicate<PsiClass> isTest;
+    private final Map<VirtualFile, FileStub> files = new ConcurrentHashMap<>();
+
+    StubReferences(Project project, AnalysisMetrics metrics, Predicate<PsiClass> isTest) {
+        this.project = project;
+        this.metrics = metrics;
+        this.isTest = isTest;
+    }
+
+    /**
+     * @return the top level classes of the files in the scope of {@code target} which reference it, ordered by file
+     */
+    List<Referrer> referrers(Target target) {
+        VirtualFile[] candidates = CacheManager.getInstance(project)
+                .getVirtualFilesWithWord(target.name(), UsageSearchContext.IN_CODE, target.scope(), true);
+        metrics.searched(candidates.length);
+        List<Referrer> referrers = new ArrayList<>();
+        Arrays.stream(candidates)
+                .filter(file -> !file.getUrl().equals(target.fileUrl()))
+                .sorted(Comparator.comparing(VirtualFile::getUrl))
+                .forEach(file -> {
+                    ProgressManager.checkCanceled();
+                    FileStub stub = fileStub(file);
+                    if (stub.sees(target)) {
+                        referrers.addAll(stub.classes());
+                    }
+                });
+        return referrers;
+    }
+
+    private FileStub fileStub(VirtualFile file) {
+        FileStub stub = files.get(file);
+        if (stub == null) {
+            stub = read(file);
+            files.putIfAbsent(file, stub);
+        }
+        return stub;
+    }
+
+    /**
+     * Reads the package, the imports and the top level classes of {@code file}, all of which are part of its stub.
+     */
+    private FileStub read(VirtualFile file) {
+        if (!(PsiManager.getInstance(project).findFile(file) instanceof PsiJavaFile javaFile)) {
+            return NOT_JAVA;
+        }
+        Map<String, String> singleImports = new HashMap<>();
+        Set<String> staticImports = new HashSet<>();
+        Set<String> onDemandImports = new HashSet<>();
+        PsiImportList importList = javaFile.getImportList();
+        if (importList != null) {
+            for (PsiImportStatement statement : importList.getImportStatements()) {
+                String qualifiedName = statement.getQualifiedName();
+                if (qualifiedName == null) {
+                    continue;
+                }
+                if (statement.isOnDemand()) {
+                    onDemandImports.add(qualifiedName);
+                } else {
+                    singleImports.put(simpleName(qualifiedName), qualifiedName);
+                }
+            }
+            for (PsiImportStaticStatement statement : importList.getImportStaticStatements()) {
+                PsiClass targetClass = statement.resolveTargetClass();
+                if (targetClass != null) {
+                    staticImports.add(CodeflowAnalysis.key(targetClass));
+                }
+            }
+        }
+        List<Referrer> classes = Arrays.stream(javaFile.getClasses())
+                .map(psiClass -> {
+                    boolean test = isTest.test(psiClass);
+                    List<String> superKeys = test ? List.of() : Arrays.stream(psiClass.getSupers())
+                            .filter(superClass -> superClass instanceof PsiClassImpl)
+                            .map(CodeflowAnalysis::key)
+                            .toList();
+                    return new Referrer(CodeflowAnalysis.key(psiClass), psiClass.getName(), file.getUrl(), test, superKeys);
+                })
+                .toList();
+        return new FileStub(javaFile.getPackageName(), singleImports, staticImports, onDemandImports, classes);
+    }
+
+    private static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+}
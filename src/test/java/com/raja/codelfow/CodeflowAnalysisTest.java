@@ -0,0 +1,27 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.io.IOException;
+
+/**
+ * Analyses a small {@link SyntheticSpringProject}, so the generator and the analysis {@link CodeflowBenchmark} runs
+ * cannot break unnoticed.
+ */
+public class CodeflowAnalysisTest extends SyntheticProjectTestCase {
+
+    public void testSyntheticProject() throws IOException {
+        SyntheticSpringProject generator = generate(100);
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        CodeflowGraph graph = analyse(new CodeflowAnalysis(getProject(), indicator), indicator).getGraph();
+
+        generator.forEachClass((qualifiedName, name) -> {
+            int id = graph.id(qualifiedName);
+            assertTrue(qualifiedName + " is missing", id >= 0);
+            assertTrue(qualifiedName + " is no component", graph.has(id, NodeFlags.COMPONENT));
+        });
+        generator.forEachReference((from, to) -> assertTrue(from + " does not reference " + to,
+                graph.references(graph.id(from), graph.id(to))));
+    }
+}
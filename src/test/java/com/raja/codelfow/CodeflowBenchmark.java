@@ -0,0 +1,101 @@
+package com.raja.codelfow;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Benchmark of the codeflow analysis, run with {@code ./gradlew benchmark}. Every test generates a
+ * {@link SyntheticSpringProject} into the light project and analyses it {@link #ITERATIONS} times with every
+ * {@link CodeflowSettings.Engine}, without storing a graph in the {@link GraphCache}. The {@link AnalysisMetrics} of
+ * every run, with the wall time of every phase, are written to {@code components-<count>.json} in the
+ * {@code codeflow.benchmark.dir} directory so engines and plugin versions can be compared. The first iteration of the first engine is cold, the later ones reuse the memoized
+ * {@link DiscoveryContext} searches like a repeated draw does.
+ */
+public class CodeflowBenchmark extends SyntheticProjectTestCase {
+
+    private static final int ITERATIONS = 3;
+
+    public void testComponents100() throws IOException {
+        benchmark(100);
+    }
+
+    public void testComponents1000() throws IOException {
+        benchmark(1_000);
+    }
+
+    public void testComponents10000() throws IOException {
+        benchmark(10_000);
+    }
+
+    private void benchmark(int components) throws IOException {
+        long generateStart = System.nanoTime();
+        SyntheticSpringProject generator = generate(components);
+        long generateNanos = System.nanoTime() - generateStart;
+
+        Path report = Paths.get(System.getProperty("codeflow.benchmark.dir", "build/reports/codeflow-benchmark"))
+                .resolve("components-" + components + ".json")
+                .toAbsolutePath();
+        Files.createDirectories(report.getParent());
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            JsonWriter json = new JsonWriter(out);
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("build").value(ApplicationInfo.getInstance().getBuild().asString());
+            json.name("timestamp").value(System.currentTimeMillis());
+            json.name("components").value(components);
+            json.name("classes").value(generator.classCount());
+            json.name("generateMillis").value(millis(generateNanos));
+            json.name("engines").beginArray();
+            CodeflowSettings settings = CodeflowSettings.getInstance(getProject());
+            CodeflowSettings.Engine configured = settings.getEngine();
+            try {
+                for (CodeflowSettings.Engine engine : CodeflowSettings.Engine.values()) {
+                    settings.setEngine(engine);
+                    json.beginObject();
+                    json.name("engine").value(engine.name());
+                    json.name("iterations").beginArray();
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        analyse(json);
+                    }
+                    json.endArray();
+                    json.endObject();
+                }
+            } finally {
+                // the light project and its settings are shared with the following tests
+                settings.setEngine(configured);
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+        }
+        System.out.println("Wrote " + report);
+    }
+
+    private void analyse(JsonWriter json) throws IOException {
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        CodeflowAnalysis analysis = new CodeflowAnalysis(getProject(), indicator);
+        long start = System.nanoTime();
+        CachedGraph graph = analyse(analysis, indicator);
+        long totalNanos = System.nanoTime() - start;
+        assertTrue(graph.getGraph().size() > 0);
+
+        json.beginObject();
+        json.name("totalMillis").value(millis(totalNanos));
+        json.name("metrics");
+        analysis.getMetrics().write(json);
+        json.endObject();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
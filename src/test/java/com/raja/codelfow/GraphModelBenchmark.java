@@ -0,0 +1,169 @@
+package com.raja.codelfow;
+
+import com.google.gson.stream.JsonWriter;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link CodeflowGraph} with the {@link LegacyNode} model it replaced, run with {@code ./gradlew benchmark}.
+ * Both are built from the classes and references of the 10k component {@link SyntheticSpringProject}, once as
+ * generated and once with every class also referencing a few shared hub classes, the shape the old model's
+ * {@code List.contains} check is quadratic on. Reports the median build time and the heap retained by the built
+ * model to {@code graph-model.json} in the {@code codeflow.benchmark.dir} directory. The legacy nodes are keyed by
+ * qualified name, so both models hold the same classes.
+ */
+public class GraphModelBenchmark extends TestCase {
+
+    private static final int COMPONENTS = 10_000;
+    private static final int HUBS = 20;
+    private static final int WARMUPS = 2;
+    private static final int RUNS = 5;
+
+    private record Workload(String name, List<String[]> classes, List<String[]> references) {
+    }
+
+    private record Measurement(long buildNanos, long retainedBytes) {
+    }
+
+    public void testGraphModels() throws IOException {
+        Path report = Paths.get(System.getProperty("codeflow.benchmark.dir", "build/reports/codeflow-benchmark"))
+                .resolve("graph-model.json")
+                .toAbsolutePath();
+        Files.createDirectories(report.getParent());
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            JsonWriter json = new JsonWriter(out);
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("timestamp").value(System.currentTimeMillis());
+            json.name("components").value(COMPONENTS);
+            json.name("workloads").beginArray();
+            for (Workload workload : List.of(synthetic(false), synthetic(true))) {
+                compare(workload, json);
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+        }
+        System.out.println("Wrote " + report);
+    }
+
+    private static void compare(Workload workload, JsonWriter json) throws IOException {
+        Measurement legacy = measure(() -> legacy(workload));
+        Measurement graph = measure(() -> graph(workload));
+        int legacyReferences = legacy(workload).values().stream().mapToInt(LegacyNode::referenceCount).sum();
+        assertEquals(legacyReferences, graph(workload).edgeCount());
+
+        System.out.printf("%s: %d classes, %d references, legacy %.1f ms %d KiB, graph %.1f ms %d KiB%n",
+                workload.name(), workload.classes().size(), legacyReferences,
+                millis(legacy.buildNanos()), legacy.retainedBytes() / 1024,
+                millis(graph.buildNanos()), graph.retainedBytes() / 1024);
+        json.beginObject();
+        json.name("workload").value(workload.name());
+        json.name("classes").value(workload.classes().size());
+        json.name("references").value(legacyReferences);
+        write("legacy", legacy, json);
+        write("graph", graph, json);
+        json.endObject();
+    }
+
+    private static void write(String model, Measurement measurement, JsonWriter json) throws IOException {
+        json.name(model).beginObject();
+        json.name("buildMillis").value(millis(measurement.buildNanos()));
+        json.name("retainedBytes").value(measurement.retainedBytes());
+        json.endObject();
+    }
+
+    /**
+     * @param hubs whether every class also references each of {@link #HUBS} shared classes
+     */
+    private static Workload synthetic(boolean hubs) {
+        SyntheticSpringProject project = new SyntheticSpringProject(Paths.get(""), COMPONENTS);
+        List<String[]> classes = new ArrayList<>();
+        List<String[]> references = new ArrayList<>();
+        project.forEachClass((qualifiedName, name) -> classes.add(new String[]{qualifiedName, name}));
+        project.forEachReference((from, to) -> references.add(new String[]{from, to}));
+        if (!hubs) {
+            return new Workload("synthetic", classes, references);
+        }
+        int generated = classes.size();
+        for (int hub = 0; hub < HUBS; hub++) {
+            String name = "Hub" + hub;
+            classes.add(new String[]{"com.example.bench.shared." + name, name});
+        }
+        for (int i = 0; i < generated; i++) {
+            for (int hub = 0; hub < HUBS; hub++) {
+                references.add(new String[]{classes.get(i)[0], classes.get(generated + hub)[0]});
+            }
+        }
+        return new Workload("synthetic with hubs", classes, references);
+    }
+
+    private static Map<String, LegacyNode> legacy(Workload workload) {
+        Map<String, LegacyNode> nodes = new HashMap<>();
+        for (String[] node : workload.classes()) {
+            nodes.put(node[0], new LegacyNode(node[1], node[0], true));
+        }
+        for (String[] reference : workload.references()) {
+            nodes.get(reference[1]).referencedFrom(nodes.get(reference[0]));
+        }
+        return nodes;
+    }
+
+    private static CodeflowGraph graph(Workload workload) {
+        GraphBuilder builder = new GraphBuilder();
+        for (String[] node : workload.classes()) {
+            builder.intern(node[0], node[1], null, NodeFlags.COMPONENT);
+        }
+        for (String[] reference : workload.references()) {
+            builder.addReference(builder.id(reference[0]), builder.id(reference[1]));
+        }
+        return builder.freeze();
+    }
+
+    /**
+     * @return the median of {@link #RUNS} builds after {@link #WARMUPS} unmeasured ones, and the heap still used
+     * after a garbage collection by the model a last build returned
+     */
+    private static Measurement measure(Supplier<Object> build) {
+        for (int i = 0; i < WARMUPS; i++) {
+            build.get();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            build.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long before = usedHeap();
+        Object model = build.get();
+        long retained = usedHeap() - before;
+        Reference.reachabilityFence(model);
+        return new Measurement(nanos[RUNS / 2], retained);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.raja.codelfow;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes small graphs to a {@link GraphSnapshot} and reads them back.
+ */
+public class GraphSnapshotTest extends TestCase {
+
+    private static final String BASE_URL = "file:///work/shop";
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = Files.createTempDirectory("codeflow-snapshot");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        super.tearDown();
+    }
+
+    public void testRoundTripWithoutLayout() throws IOException {
+        CodeflowGraph graph = graph();
+        Path file = dir.resolve("graph." + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph, null, BASE_URL, file);
+
+        CachedGraph read = GraphSnapshot.read(file, BASE_URL);
+        assertSameGraph(graph, read.getGraph());
+        assertNull(read.getLayout());
+    }
+
+    public void testRoundTripWithLayout() throws IOException {
+        CodeflowGraph graph = graph();
+        GraphLayout layout = new GraphLayout(new float[]{0, 1.5f, Float.NaN, -2, 3.25f}, new float[]{4, -0.5f, Float.NaN, 6, 7});
+        Path file = dir.resolve("graph." + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph, layout, BASE_URL, file);
+
+        CachedGraph read = GraphSnapshot.read(file, BASE_URL);
+        assertSameGraph(graph, read.getGraph());
+        assertEquals(layout.size(), read.getLayout().size());
+        for (int id = 0; id < layout.size(); id++) {
+            assertEquals(layout.isPlaced(id), read.getLayout().isPlaced(id));
+            assertEquals(layout.x(id), read.getLayout().x(id), 0);
+            assertEquals(layout.y(id), read.getLayout().y(id), 0);
+        }
+    }
+
+    public void testFilesAreResolvedAgainstTheProjectDirectory() throws IOException {
+        Path file = dir.resolve("graph." + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph(), null, BASE_URL, file);
+
+        CodeflowGraph moved = GraphSnapshot.read(file, "file:///home/shop").getGraph();
+        assertEquals("file:///home/shop/src/OrderController.java", moved.fileUrl(0));
+        assertEquals("jar:///libs/api.jar!/Api.class", moved.fileUrl(4));
+        assertNull(moved.fileUrl(2));
+    }
+
+    public void testEmptyGraph() throws IOException {
+        CodeflowGraph graph = new GraphBuilder().freeze();
+        Path file = dir.resolve("empty." + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph, null, null, file);
+
+        assertSameGraph(graph, GraphSnapshot.read(file, null).getGraph());
+    }
+
+    public void testTruncatedFile() throws IOException {
+        Path file = dir.resolve("graph." + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph(), new GraphLayout(new float[]{0, 1, 2, 3, 4}, new float[]{0, 1, 2, 3, 4}), BASE_URL, file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length = 0; length < bytes.length; length++) {
+            Path truncated = dir.resolve("truncated-" + length + "." + GraphSnapshot.EXTENSION);
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            try {
+                GraphSnapshot.read(truncated, BASE_URL);
+                fail("Read a snapshot truncated to " + length + " of " + bytes.length + " bytes");
+            } catch (IOException expected) {
+                // the only exception a damaged snapshot may raise
+            }
+        }
+    }
+
+    /**
+     * @return a controller and a service implementing an interface, a repository without a file and a library class
+     */
+    private static CodeflowGraph graph() {
+        GraphBuilder builder = new GraphBuilder();
+        int controller = builder.intern("shop.OrderController", "OrderController", BASE_URL + "/src/OrderController.java",
+                NodeFlags.COMPONENT | NodeFlags.CONTROLLER);
+        int service = builder.intern("shop.OrderService", "OrderService", BASE_URL + "/src/OrderService.java",
+                NodeFlags.COMPONENT | NodeFlags.INTERFACE);
+        int repository = builder.intern("shop.OrderRepository", "OrderRepository", null,
+                NodeFlags.COMPONENT | NodeFlags.REPOSITORY);
+        int serviceImpl = builder.intern("shop.OrderServiceImpl", "OrderServiceImpl", BASE_URL + "/src/OrderServiceImpl.java",
+                NodeFlags.COMPONENT);
+        int api = builder.intern("api.Api", "Api", "jar:///libs/api.jar!/Api.class", NodeFlags.INTERFACE);
+        builder.addReference(controller, service);
+        builder.addReference(serviceImpl, service);
+        builder.addReference(serviceImpl, repository);
+        builder.addReference(serviceImpl, api);
+        builder.addReference(repository, api);
+        builder.addInheritance(serviceImpl, service);
+        builder.addInheritance(serviceImpl, api);
+        builder.addInheritance(service, api);
+        return builder.freeze();
+    }
+
+    private static void assertSameGraph(CodeflowGraph expected, CodeflowGraph actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int id = 0; id < expected.size(); id++) {
+            assertEquals(expected.qualifiedName(id), actual.qualifiedName(id));
+            assertEquals(expected.name(id), actual.name(id));
+            assertEquals(expected.fileUrl(id), actual.fileUrl(id));
+            assertEquals(expected.flags(id), actual.flags(id));
+            assertEquals(id, actual.id(expected.qualifiedName(id)));
+            assertSameRow(expected, actual, id, CodeflowGraph::forEachReferencedFrom);
+            assertSameRow(expected, actual, id, CodeflowGraph::forEachReference);
+            assertSameRow(expected, actual, id, CodeflowGraph::forEachInheritsFrom);
+        }
+    }
+
+    private interface Row {
+        void forEach(CodeflowGraph graph, int id, IntConsumer consumer);
+    }
+
+    private static void assertSameRow(CodeflowGraph expected, CodeflowGraph actual, int id, Row row) {
+        assertEquals(row(expected, id, row), row(actual, id, row));
+    }
+
+    private static IntArrayList row(CodeflowGraph graph, int id, Row row) {
+        IntArrayList ids = new IntArrayList();
+        row.forEach(graph, id, ids::add);
+        ids.sort(null);
+        return ids;
+    }
+}
@@ -0,0 +1,41 @@
+package com.raja.codelfow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The node the graph was kept in before {@link CodeflowGraph}, only kept to compare the two in
+ * {@link GraphModelBenchmark}: a flag per field and lists of the referencing classes which are searched before
+ * every add.
+ */
+class LegacyNode {
+
+    private final String name;
+    private final String fullName;
+    private final boolean isComponent;
+    private final List<LegacyNode> referencedFrom = new ArrayList<>();
+    private boolean test;
+    private boolean controller;
+    private boolean config;
+    private boolean interfaceImpl;
+    private boolean isInterface;
+    private boolean repository;
+    private final List<LegacyNode> inheritsFrom = new ArrayList<>();
+    private boolean pubsub;
+
+    LegacyNode(String name, String fullName, boolean isComponent) {
+        this.name = name;
+        this.fullName = fullName;
+        this.isComponent = isComponent;
+    }
+
+    void referencedFrom(LegacyNode node) {
+        if (!referencedFrom.contains(node)) {
+            referencedFrom.add(node);
+        }
+    }
+
+    int referenceCount() {
+        return referencedFrom.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.raja.codelfow;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.roots.ContentEntry;
+import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.PsiTestUtil;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A light fixture test on a {@link SyntheticSpringProject}. The module of the shared light project has the generated
+ * Spring stub jar as a library and {@link #generate} copies the generated sources into its source root. The light
+ * fixture deletes them after every test, so a test never sees the classes of an earlier one.
+ */
+public abstract class SyntheticProjectTestCase extends LightJavaCodeInsightFixtureTestCase {
+
+    private static final String STUB_JAR = "spring-stubs.jar";
+
+    private static final LightProjectDescriptor DESCRIPTOR = new DefaultLightProjectDescriptor() {
+        @Override
+        public void configureModule(@NotNull Module module, @NotNull ModifiableRootModel model, @NotNull ContentEntry contentEntry) {
+            super.configureModule(module, model, contentEntry);
+            try {
+                Path lib = Files.createTempDirectory("codeflow-stubs");
+                SyntheticSpringProject.writeStubJar(lib.resolve(STUB_JAR));
+                PsiTestUtil.addLibrary(model, "spring-stubs", lib.toString(), STUB_JAR);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    @Override
+    protected @NotNull LightProjectDescriptor getProjectDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /**
+     * Generates a project with about {@code components} classes into the source root of the light project.
+     */
+    protected SyntheticSpringProject generate(int components) throws IOException {
+        Path generated = Files.createTempDirectory("codeflow-synthetic");
+        try {
+            SyntheticSpringProject project = new SyntheticSpringProject(generated, components);
+            project.generate();
+            VirtualFile from = LocalFileSystem.getInstance().refreshAndFindFileByPath(generated.toString());
+            assertNotNull(from);
+            VirtualFile sourceRoot = ModuleRootManager.getInstance(getModule()).getSourceRoots()[0];
+            WriteAction.runAndWait(() -> VfsUtil.copyDirectory(this, from, sourceRoot, null));
+            return project;
+        } finally {
+            FileUtil.delete(generated.toFile());
+        }
+    }
+
+    /**
+     * Runs {@code analysis} like {@link SearchAction} does, without storing its result in the {@link GraphCache}.
+     */
+    protected static CachedGraph analyse(CodeflowAnalysis analysis, ProgressIndicator indicator) {
+        return ProgressManager.getInstance().runProcess(() -> ReadAction.compute(analysis::run), indicator);
+    }
+}
@@ -0,0 +1,254 @@
+package com.raja.codelfow;
+
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor;
+import org.jetbrains.org.objectweb.asm.ClassWriter;
+import org.jetbrains.org.objectweb.asm.MethodVisitor;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates the sources of a Spring application with about {@code components} classes: controllers calling
+ * services, services calling each other, repositories and Feign clients, {@code @Bean} factories and
+ * {@code @ServiceActivator} consumers fed by {@code MessageChannel} publishers. The Spring types come from a
+ * generated stub jar, so the project needs no dependencies and no JDK.
+ */
+public class SyntheticSpringProject {
+
+    private static final String BASE_PACKAGE = "com.example.bench";
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    private final Path sourceRoot;
+    private final int controllers;
+    private final int services;
+    private final int repositories;
+    private final int clients;
+    private final int factories;
+    private final int consumers;
+
+    public SyntheticSpringProject(Path sourceRoot, int components) {
+        this.sourceRoot = sourceRoot;
+        this.controllers = Math.max(1, components / 10);
+        this.repositories = Math.max(1, components / 10);
+        this.clients = Math.max(1, components / 20);
+        this.factories = Math.max(1, components / 20);
+        this.consumers = Math.max(1, components / 20);
+        this.services = Math.max(1, components - controllers - repositories - clients - 2 * factories - 2 * consumers);
+    }
+
+    /**
+     * Writes the classes to the source root, the Spring types they use come from {@link #writeStubJar}.
+     */
+    public void generate() throws IOException {
+        for (int i = 0; i < controllers; i++) {
+            writeClass("Controller", i, """
+                    @org.springframework.web.bind.annotation.RestController
+                    public class %s {
+                        private final %s service;
+
+                        public %s(%s service) {
+                            this.service = service;
+                        }
+                    }
+                    """.formatted(name("Controller", i), qualifiedName("Service", i % services), name("Controller", i), qualifiedName("Service", i % services)));
+        }
+        for (int i = 0; i < services; i++) {
+            writeClass("Service", i, """
+                    @org.springframework.stereotype.Service
+                    public class %s {
+                        private %s next;
+                        private %s repository;
+                        private %s client;
+                        private %s helper;
+                        private %s publisher;
+                    }
+                    """.formatted(name("Service", i),
+                    qualifiedName("Service", (i + 1) % services),
+                    qualifiedName("Repository", i % repositories),
+                    qualifiedName("Client", i % clients),
+                    qualifiedName("Helper", i % factories),
+                    qualifiedName("Publisher", i % consumers)));
+        }
+        for (int i = 0; i < repositories; i++) {
+            writeClass("Repository", i, """
+                    public interface %s extends org.springframework.data.repository.Repository<String, Long> {
+                    }
+                    """.formatted(name("Repository", i)));
+        }
+        for (int i = 0; i < clients; i++) {
+            writeClass("Client", i, """
+                    @org.springframework.cloud.openfeign.FeignClient(name = "client-%d")
+                    public interface %s {
+                    }
+                    """.formatted(i, name("Client", i)));
+        }
+        for (int i = 0; i < factories; i++) {
+            writeClass("Helper", i, """
+                    public class %s {
+                    }
+                    """.formatted(name("Helper", i)));
+            writeClass("Factory", i, """
+                    @org.springframework.context.annotation.Configuration
+                    public class %s {
+                        @org.springframework.context.annotation.Bean
+                        public %s helper() {
+                            return new %s();
+                        }
+                    }
+                    """.formatted(name("Factory", i), qualifiedName("Helper", i), qualifiedName("Helper", i)));
+        }
+        for (int i = 0; i < consumers; i++) {
+            writeClass("Publisher", i, """
+                    @org.springframework.stereotype.Component
+                    public class %s {
+                        private org.springframework.messaging.MessageChannel channel;
+                    }
+                    """.formatted(name("Publisher", i)));
+            writeClass("Consumer", i, """
+                    @org.springframework.stereotype.Component
+                    public class %s {
+                        @org.springframework.integration.annotation.ServiceActivator(inputChannel = "channel-%d")
+                        public void handle(String message) {
+                        }
+                    }
+                    """.formatted(name("Consumer", i), i));
+        }
+    }
+
+    /**
+     * @return the number of generated classes
+     */
+    public int classCount() {
+        return controllers + services + repositories + clients + 2 * factories + 2 * consumers;
+    }
+
+    /**
+     * Reports the qualified name of every generated class together with its simple name.
+     */
+    public void forEachClass(BiConsumer<String, String> consumer) {
+        forEachClass("Controller", controllers, consumer);
+        forEachClass("Service", services, consumer);
+        forEachClass("Repository", repositories, consumer);
+        forEachClass("Client", clients, consumer);
+        forEachClass("Helper", factories, consumer);
+        forEachClass("Factory", factories, consumer);
+        forEachClass("Publisher", consumers, consumer);
+        forEachClass("Consumer", consumers, consumer);
+    }
+
+    /**
+     * Reports the qualified names of the classes of every reference between the generated classes, the references
+     * through message channels excluded.
+     */
+    public void forEachReference(BiConsumer<String, String> consumer) {
+        for (int i = 0; i < controllers; i++) {
+            consumer.accept(qualifiedName("Controller", i), qualifiedName("Service", i % services));
+        }
+        for (int i = 0; i < services; i++) {
+            String service = qualifiedName("Service", i);
+            consumer.accept(service, qualifiedName("Service", (i + 1) % services));
+            consumer.accept(service, qualifiedName("Repository", i % repositories));
+            consumer.accept(service, qualifiedName("Client", i % clients));
+            consumer.accept(service, qualifiedName("Helper", i % factories));
+            consumer.accept(service, qualifiedName("Publisher", i % consumers));
+        }
+        for (int i = 0; i < factories; i++) {
+            consumer.accept(qualifiedName("Factory", i), qualifiedName("Helper", i));
+        }
+    }
+
+    private static void forEachClass(String kind, int count, BiConsumer<String, String> consumer) {
+        for (int i = 0; i < count; i++) {
+            consumer.accept(qualifiedName(kind, i), name(kind, i));
+        }
+    }
+
+    private static String name(String kind, int index) {
+        return kind + index;
+    }
+
+    private static String packageName(int index) {
+        return BASE_PACKAGE + ".p" + index / CLASSES_PER_PACKAGE;
+    }
+
+    private static String qualifiedName(String kind, int index) {
+        return packageName(index) + "." + name(kind, index);
+    }
+
+    private void writeClass(String kind, int index, String body) throws IOException {
+        String packageName = packageName(index);
+        write(packageName.replace('.', '/') + "/" + name(kind, index) + ".java",
+                "package " + packageName + ";\n\n" + body);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = sourceRoot.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a jar with the annotations and types of Spring the generated classes use.
+     */
+    public static void writeStubJar(Path jar) throws IOException {
+        Files.createDirectories(jar.getParent());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            String component = "org/springframework/stereotype/Component";
+            writeEntry(out, component, annotation(component, null, "value"));
+            writeEntry(out, "org/springframework/stereotype/Service", annotation("org/springframework/stereotype/Service", component, "value"));
+            writeEntry(out, "org/springframework/web/bind/annotation/RestController", annotation("org/springframework/web/bind/annotation/RestController", component, "value"));
+            writeEntry(out, "org/springframework/context/annotation/Configuration", annotation("org/springframework/context/annotation/Configuration", component, "value"));
+            writeEntry(out, "org/springframework/context/annotation/Bean", annotation("org/springframework/context/annotation/Bean", null));
+            writeEntry(out, "org/springframework/cloud/openfeign/FeignClient", annotation("org/springframework/cloud/openfeign/FeignClient", null, "name"));
+            writeEntry(out, "org/springframework/integration/annotation/ServiceActivator", annotation("org/springframework/integration/annotation/ServiceActivator", null, "inputChannel"));
+            writeEntry(out, "org/springframework/data/repository/Repository", type("org/springframework/data/repository/Repository",
+                    "<T:Ljava/lang/Object;ID:Ljava/lang/Object;>Ljava/lang/Object;"));
+            writeEntry(out, "org/springframework/messaging/MessageChannel", type("org/springframework/messaging/MessageChannel", null));
+        }
+    }
+
+    private static void writeEntry(JarOutputStream out, String internalName, byte[] bytes) throws IOException {
+        out.putNextEntry(new JarEntry(internalName + ".class"));
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    /**
+     * @return a runtime retained annotation type, meta-annotated with {@code metaAnnotation} if it is not
+     * {@code null}, with a {@code String} element defaulting to {@code ""} for every name in {@code elements}
+     */
+    private static byte[] annotation(String internalName, String metaAnnotation, String... elements) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE | Opcodes.ACC_ANNOTATION,
+                internalName, null, "java/lang/Object", new String[]{"java/lang/annotation/Annotation"});
+        AnnotationVisitor retention = writer.visitAnnotation("Ljava/lang/annotation/Retention;", true);
+        retention.visitEnum("value", "Ljava/lang/annotation/RetentionPolicy;", "RUNTIME");
+        retention.visitEnd();
+        if (metaAnnotation != null) {
+            writer.visitAnnotation("L" + metaAnnotation + ";", true).visitEnd();
+        }
+        for (String element : elements) {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, element, "()Ljava/lang/String;", null, null);
+            AnnotationVisitor defaultValue = method.visitAnnotationDefault();
+            defaultValue.visit(null, "");
+            defaultValue.visitEnd();
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] type(String internalName, String signature) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE,
+                internalName, signature, "java/lang/Object", null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+}